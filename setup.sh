@@ -154,7 +154,7 @@ mvn clean install
 
 echo -e "\n${GREEN}Setup completed successfully!${NC}"
 echo -e "${YELLOW}Next steps:${NC}"
-echo "1. Update Tesseract data path in VisionQuery.java"
+echo "1. Set vision.tesseract.data.path in src/test/resources/config.properties if tessdata is not auto-detected"
 echo "2. Configure Appium capabilities in MobileVisionTest.java"
 echo "3. Add template images to src/test/resources/templates/"
 echo "4. Run 'mvn test' to verify setup" 
\ No newline at end of file
@@ -0,0 +1,226 @@
+package com.vision.core;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.javacpp.IntPointer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.*;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.bytedeco.opencv.global.opencv_imgcodecs.*;
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+/**
+ * Local store of reference screens for visual regression checks.
+ * <p>
+ * Each key (for example {@code pixel7/language_selection}) maps to a directory holding a lossless PNG of
+ * the frame, a small thumbnail and a {@code current.properties} file with the frame geometry, an exact
+ * content hash and a perceptual hash. Images are written under a fresh version name and only become
+ * visible when {@code current.properties} is atomically replaced, so readers never see a half-written
+ * baseline. Saves of one key are serialised, within the JVM and through a lock file across JVMs sharing
+ * the store, so a save never deletes the images of another save that is about to publish them.
+ * <p>
+ * {@link #compare} returns straight from the metadata when the content hash matches and only decodes the
+ * stored PNG and runs {@link ImageComparator} when it doesn't.
+ */
+@Slf4j
+public class BaselineStore {
+    private static final Pattern KEY_SEGMENT = Pattern.compile("[A-Za-z0-9._-]+");
+    private static final Pattern DOTS = Pattern.compile("\\.+");
+    private static final String METADATA_FILE = "current.properties";
+    private static final String LOCK_FILE = ".lock";
+    private static final int PNG_COMPRESSION = 3;
+    private static final int THUMBNAIL_SIZE = 128;
+
+    private final Path root;
+    private final ImageComparator comparator = new ImageComparator();
+    private final Map<Path, Object> saveLocks = new ConcurrentHashMap<>();
+
+    public BaselineStore(Path root) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        Files.createDirectories(this.root);
+    }
+
+    public boolean hasBaseline(String key) {
+        return Files.exists(keyDirectory(key).resolve(METADATA_FILE));
+    }
+
+    /** Stores {@code image} as the new baseline for {@code key}, replacing the previous one atomically. */
+    public void save(String key, Mat image) throws IOException {
+        Path dir = keyDirectory(key);
+        Files.createDirectories(dir);
+        // File locks belong to the JVM, so threads of this JVM also queue on a monitor per directory
+        synchronized (saveLocks.computeIfAbsent(dir, d -> new Object())) {
+            try (FileChannel channel = FileChannel.open(dir.resolve(LOCK_FILE),
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                saveLocked(key, dir, image);
+            }
+        }
+    }
+
+    private void saveLocked(String key, Path dir, Mat image) throws IOException {
+        String previousVersion = hasBaseline(key) ? readMetadata(key).getProperty("version") : null;
+
+        String version = System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        Path imagePath = dir.resolve(version + ".png");
+        Path thumbnailPath = dir.resolve(version + ".thumb.png");
+
+        IntPointer params = new IntPointer(IMWRITE_PNG_COMPRESSION, PNG_COMPRESSION);
+        Mat thumbnail = thumbnail(image);
+        try {
+            if (!imwrite(imagePath.toString(), image, params) || !imwrite(thumbnailPath.toString(), thumbnail, params)) {
+                throw new IOException("Failed to write baseline images for " + key);
+            }
+        } finally {
+            thumbnail.release();
+            params.deallocate();
+        }
+
+        Properties metadata = new Properties();
+        metadata.setProperty("version", version);
+        metadata.setProperty("width", String.valueOf(image.cols()));
+        metadata.setProperty("height", String.valueOf(image.rows()));
+        metadata.setProperty("type", String.valueOf(image.type()));
+        metadata.setProperty("content.hash", ImageHashes.contentHash(image));
+        metadata.setProperty("perceptual.hash", Long.toHexString(ImageHashes.differenceHash(image)));
+
+        Path tmp = dir.resolve(METADATA_FILE + "." + version + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            metadata.store(out, "Baseline for " + key);
+        }
+        Files.move(tmp, dir.resolve(METADATA_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        log.info("Stored baseline {} version {}", key, version);
+
+        deleteStaleVersions(dir, version, previousVersion);
+    }
+
+    /** Compares {@code actual} with the stored baseline, skipping the pixel diff when the content hash matches. */
+    public ComparisonResult compare(String key, Mat actual, ComparisonOptions options) throws IOException {
+        Properties metadata = readMetadata(key);
+        long pixels = (long) actual.cols() * actual.rows();
+        if (matchesGeometry(metadata, actual)
+            && metadata.getProperty("content.hash").equals(ImageHashes.contentHash(actual))) {
+            return new ComparisonResult(1.0, 0, pixels, Collections.emptyList(), false);
+        }
+
+        Mat baseline = load(metadata, key);
+        try {
+            return comparator.compare(baseline, actual, options);
+        } finally {
+            baseline.release();
+        }
+    }
+
+    /** Cheap similarity check on the stored perceptual hash; no image is decoded. */
+    public boolean matchesPerceptually(String key, Mat actual, int maxDistance) throws IOException {
+        return ImageHashes.hammingDistance(perceptualHash(key), ImageHashes.differenceHash(actual)) <= maxDistance;
+    }
+
+    public long perceptualHash(String key) throws IOException {
+        return Long.parseUnsignedLong(readMetadata(key).getProperty("perceptual.hash"), 16);
+    }
+
+    public Mat loadBaseline(String key) throws IOException {
+        return load(readMetadata(key), key);
+    }
+
+    public Mat loadThumbnail(String key) throws IOException {
+        Properties metadata = readMetadata(key);
+        Path path = keyDirectory(key).resolve(metadata.getProperty("version") + ".thumb.png");
+        Mat thumbnail = imread(path.toString(), IMREAD_UNCHANGED);
+        if (thumbnail.empty()) {
+            throw new IOException("Failed to read baseline thumbnail " + path);
+        }
+        return thumbnail;
+    }
+
+    private Mat load(Properties metadata, String key) throws IOException {
+        Path path = keyDirectory(key).resolve(metadata.getProperty("version") + ".png");
+        Mat image = imread(path.toString(), IMREAD_UNCHANGED);
+        if (image.empty()) {
+            throw new IOException("Failed to read baseline image " + path);
+        }
+        return image;
+    }
+
+    private Properties readMetadata(String key) throws IOException {
+        Path path = keyDirectory(key).resolve(METADATA_FILE);
+        if (!Files.exists(path)) {
+            throw new NoSuchFileException(path.toString(), null, "No baseline stored for " + key);
+        }
+        Properties metadata = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            metadata.load(in);
+        }
+        return metadata;
+    }
+
+    private boolean matchesGeometry(Properties metadata, Mat image) {
+        return Integer.parseInt(metadata.getProperty("width")) == image.cols()
+            && Integer.parseInt(metadata.getProperty("height")) == image.rows()
+            && Integer.parseInt(metadata.getProperty("type")) == image.type();
+    }
+
+    private Mat thumbnail(Mat image) {
+        double scale = (double) THUMBNAIL_SIZE / Math.max(image.cols(), image.rows());
+        Mat thumbnail = new Mat();
+        if (scale >= 1.0) {
+            image.copyTo(thumbnail);
+        } else {
+            resize(image, thumbnail, new Size(Math.max(1, (int) (image.cols() * scale)),
+                Math.max(1, (int) (image.rows() * scale))), 0, 0, INTER_AREA);
+        }
+        return thumbnail;
+    }
+
+    /**
+     * Keeps the previous version around so readers that loaded the old metadata can still open its image.
+     * Runs under the key's save lock, so no other save has unpublished images in the directory.
+     */
+    private void deleteStaleVersions(Path dir, String currentVersion, String previousVersion) {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> {
+                String name = p.getFileName().toString();
+                return Files.isRegularFile(p) && !name.equals(METADATA_FILE) && !name.equals(LOCK_FILE)
+                    && !name.endsWith(".tmp")
+                    && !name.startsWith(currentVersion + ".")
+                    && (previousVersion == null || !name.startsWith(previousVersion + "."));
+            }).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    log.warn("Could not delete stale baseline file {}", p, e);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Could not clean up baseline directory {}", dir, e);
+        }
+    }
+
+    private Path keyDirectory(String key) {
+        Path dir = root;
+        for (String segment : key.split("/")) {
+            if (!KEY_SEGMENT.matcher(segment).matches() || DOTS.matcher(segment).matches()) {
+                throw new IllegalArgumentException("Invalid baseline key: " + key);
+            }
+            dir = dir.resolve(segment);
+        }
+        if (!dir.normalize().startsWith(root)) {
+            throw new IllegalArgumentException("Baseline key outside the store: " + key);
+        }
+        return dir;
+    }
+}
@@ -0,0 +1,134 @@
+package com.vision.core;
+
+import org.bytedeco.opencv.opencv_core.Rect;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Settings for {@link ImageComparator}. Setters return {@code this} so options can be chained:
+ * <pre>
+ * new ComparisonOptions()
+ *     .setTileSize(128)
+ *     .setMaxDiffRatio(0.02)
+ *     .addIgnoreRegion(new Rect(0, 0, 1080, 80));   // status bar clock
+ * </pre>
+ */
+public class ComparisonOptions {
+    private int tileSize = 128;
+    private int pixelThreshold = 30;
+    private double maxDiffRatio = 1.0;
+    private int minRegionArea = 4;
+    private int mergeDistance = 2;
+    private final List<Rect> ignoreRegions = new ArrayList<>();
+    private boolean ssim = false;
+    private double ssimScale = 0.25;
+    private double ssimRegionThreshold = 0.6;
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /** Edge length in pixels of the square tiles the frame is split into. */
+    public ComparisonOptions setTileSize(int tileSize) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("Tile size must be positive");
+        }
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    public int getPixelThreshold() {
+        return pixelThreshold;
+    }
+
+    /** Per-pixel grayscale difference above which a pixel counts as changed. */
+    public ComparisonOptions setPixelThreshold(int pixelThreshold) {
+        this.pixelThreshold = pixelThreshold;
+        return this;
+    }
+
+    public double getMaxDiffRatio() {
+        return maxDiffRatio;
+    }
+
+    /**
+     * Fraction of compared pixels allowed to differ. Once the running count passes this budget the
+     * remaining tiles are skipped and the result is flagged as {@link ComparisonResult#isBudgetExceeded()}.
+     * In SSIM mode the whole map is always computed and only the flag is set. The default of 1.0 always
+     * compares the whole frame.
+     */
+    public ComparisonOptions setMaxDiffRatio(double maxDiffRatio) {
+        if (maxDiffRatio < 0 || maxDiffRatio > 1) {
+            throw new IllegalArgumentException("Diff ratio must be between 0 and 1");
+        }
+        this.maxDiffRatio = maxDiffRatio;
+        return this;
+    }
+
+    public int getMinRegionArea() {
+        return minRegionArea;
+    }
+
+    /**
+     * Changed areas smaller than this many pixels after merging are not reported as regions (they still count
+     * as diff).
+     */
+    public ComparisonOptions setMinRegionArea(int minRegionArea) {
+        this.minRegionArea = minRegionArea;
+        return this;
+    }
+
+    public int getMergeDistance() {
+        return mergeDistance;
+    }
+
+    /** Regions closer than this many pixels are merged, which also stitches regions split by tile edges. */
+    public ComparisonOptions setMergeDistance(int mergeDistance) {
+        this.mergeDistance = mergeDistance;
+        return this;
+    }
+
+    public List<Rect> getIgnoreRegions() {
+        return Collections.unmodifiableList(ignoreRegions);
+    }
+
+    /** Excludes an area (clocks, spinners, ads) from the comparison. */
+    public ComparisonOptions addIgnoreRegion(Rect region) {
+        ignoreRegions.add(region);
+        return this;
+    }
+
+    public boolean isSsim() {
+        return ssim;
+    }
+
+    /** Compares structural similarity on downscaled frames instead of the tiled pixel diff. */
+    public ComparisonOptions setSsim(boolean ssim) {
+        this.ssim = ssim;
+        return this;
+    }
+
+    public double getSsimScale() {
+        return ssimScale;
+    }
+
+    public ComparisonOptions setSsimScale(double ssimScale) {
+        if (ssimScale <= 0 || ssimScale > 1) {
+            throw new IllegalArgumentException("SSIM scale must be in (0, 1]");
+        }
+        this.ssimScale = ssimScale;
+        return this;
+    }
+
+    public double getSsimRegionThreshold() {
+        return ssimRegionThreshold;
+    }
+
+    /** Local SSIM below which an area is reported as a changed region in SSIM mode. */
+    public ComparisonOptions setSsimRegionThreshold(double ssimRegionThreshold) {
+        this.ssimRegionThreshold = ssimRegionThreshold;
+        return this;
+    }
+}
@@ -0,0 +1,80 @@
+package com.vision.core;
+
+import org.bytedeco.opencv.opencv_core.Rect;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of an {@link ImageComparator} run: a similarity score plus the rectangles that changed.
+ */
+public class ComparisonResult {
+    private final double similarity;
+    private final long diffPixels;
+    private final long comparedPixels;
+    private final long examinedPixels;
+    private final List<Rect> diffRegions;
+    private final boolean budgetExceeded;
+
+    public ComparisonResult(double similarity, long diffPixels, long comparedPixels,
+                            List<Rect> diffRegions, boolean budgetExceeded) {
+        this(similarity, diffPixels, comparedPixels, comparedPixels, diffRegions, budgetExceeded);
+    }
+
+    public ComparisonResult(double similarity, long diffPixels, long comparedPixels, long examinedPixels,
+                            List<Rect> diffRegions, boolean budgetExceeded) {
+        this.similarity = similarity;
+        this.diffPixels = diffPixels;
+        this.comparedPixels = comparedPixels;
+        this.examinedPixels = examinedPixels;
+        this.diffRegions = Collections.unmodifiableList(diffRegions);
+        this.budgetExceeded = budgetExceeded;
+    }
+
+    /**
+     * 1.0 for identical frames. In pixel mode this is the share of unchanged pixels (the same value
+     * {@link VisionQuery#compareImages(org.bytedeco.opencv.opencv_core.Mat, org.bytedeco.opencv.opencv_core.Mat)}
+     * returns); in SSIM mode it is the mean structural similarity. When the pixel-mode budget stopped the
+     * comparison early the share is taken over {@link #getExaminedPixels()} only.
+     */
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    public long getDiffPixels() {
+        return diffPixels;
+    }
+
+    /** Pixels in scope of the comparison, i.e. the frame minus ignored regions. */
+    public long getComparedPixels() {
+        return comparedPixels;
+    }
+
+    /** Pixels actually diffed; fewer than {@link #getComparedPixels()} when the budget skipped tiles. */
+    public long getExaminedPixels() {
+        return examinedPixels;
+    }
+
+    /** Changed areas in full-frame coordinates. Partial when the pixel-mode budget stopped the comparison. */
+    public List<Rect> getDiffRegions() {
+        return diffRegions;
+    }
+
+    /**
+     * True when more than {@link ComparisonOptions#getMaxDiffRatio()} of the pixels changed. In pixel mode
+     * the comparison then stopped early; SSIM mode always computes the whole map.
+     */
+    public boolean isBudgetExceeded() {
+        return budgetExceeded;
+    }
+
+    public boolean isIdentical() {
+        return diffPixels == 0 && diffRegions.isEmpty() && !budgetExceeded;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ComparisonResult{similarity=%.4f, diffPixels=%d, examinedPixels=%d, regions=%d, budgetExceeded=%s}",
+            similarity, diffPixels, examinedPixels, diffRegions.size(), budgetExceeded);
+    }
+}
@@ -0,0 +1,306 @@
+package com.vision.core;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.opencv.opencv_core.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+/**
+ * Region-aware image comparison. The frame is split into tiles that are diffed in parallel; each
+ * tile adds its changed pixel count to a shared budget and the remaining tiles are skipped once
+ * the budget is used up. Changed areas are reported as rectangles in full-frame coordinates; the
+ * fragments tiles cut a change into are merged before small regions are dropped, so the reported regions
+ * do not depend on the tile size.
+ */
+@Slf4j
+public class ImageComparator {
+    private static final double SSIM_C1 = 6.5025;   // (0.01 * 255)^2
+    private static final double SSIM_C2 = 58.5225;  // (0.03 * 255)^2
+
+    public ComparisonResult compare(Mat image1, Mat image2, ComparisonOptions options) {
+        if (image1.cols() != image2.cols() || image1.rows() != image2.rows()) {
+            throw new IllegalArgumentException("Images must be the same size");
+        }
+        if (image1.channels() != image2.channels()) {
+            throw new IllegalArgumentException("Images must have the same number of channels");
+        }
+
+        Mat mask = buildMask(image1.cols(), image1.rows(), options.getIgnoreRegions());
+        try {
+            return options.isSsim()
+                ? compareSsim(image1, image2, mask, options)
+                : compareTiles(image1, image2, mask, options);
+        } finally {
+            if (mask != null) {
+                mask.release();
+            }
+        }
+    }
+
+    private ComparisonResult compareTiles(Mat image1, Mat image2, Mat mask, ComparisonOptions options) {
+        int cols = image1.cols();
+        int rows = image1.rows();
+        int tileSize = options.getTileSize();
+        int tilesX = (cols + tileSize - 1) / tileSize;
+        int tilesY = (rows + tileSize - 1) / tileSize;
+
+        long comparedPixels = mask == null ? (long) cols * rows : countNonZero(mask);
+        long budget = (long) Math.floor(options.getMaxDiffRatio() * comparedPixels);
+
+        AtomicLong diffPixels = new AtomicLong();
+        AtomicLong examinedPixels = new AtomicLong();
+        AtomicBoolean exceeded = new AtomicBoolean(false);
+        Queue<Rect> regions = new ConcurrentLinkedQueue<>();
+
+        IntStream.range(0, tilesX * tilesY).parallel().forEach(index -> {
+            if (exceeded.get()) {
+                return;
+            }
+            int tx = (index % tilesX) * tileSize;
+            int ty = (index / tilesX) * tileSize;
+            Rect tile = new Rect(tx, ty, Math.min(tileSize, cols - tx), Math.min(tileSize, rows - ty));
+
+            long changed = diffTile(image1, image2, mask, tile, options, regions, examinedPixels);
+            if (changed > 0 && diffPixels.addAndGet(changed) > budget) {
+                exceeded.set(true);
+            }
+        });
+
+        List<Rect> merged = largeRegions(Regions.merge(new ArrayList<>(regions), options.getMergeDistance()), options);
+        long diff = diffPixels.get();
+        // Once the budget stops the diff the skipped tiles are unknown, so the ratio covers the examined ones
+        long examined = exceeded.get() ? examinedPixels.get() : comparedPixels;
+        double similarity = examined == 0 ? 1.0 : 1.0 - ((double) diff / examined);
+        if (exceeded.get()) {
+            log.debug("Diff budget of {} pixels exceeded, stopped after {} changed of {} examined pixels",
+                budget, diff, examined);
+        }
+        return new ComparisonResult(similarity, diff, comparedPixels, examined, merged, exceeded.get());
+    }
+
+    /** Diffs one tile and adds the bounding box of every changed fragment, however small, to {@code regions}. */
+    private long diffTile(Mat image1, Mat image2, Mat mask, Rect tile, ComparisonOptions options, Queue<Rect> regions,
+                          AtomicLong examinedPixels) {
+        Mat tileMask = mask == null ? null : new Mat(mask, tile);
+        long tilePixels = tileMask == null ? (long) tile.area() : countNonZero(tileMask);
+        if (tilePixels == 0) {
+            if (tileMask != null) {
+                tileMask.release();
+            }
+            return 0;
+        }
+        examinedPixels.addAndGet(tilePixels);
+
+        Mat a = new Mat(image1, tile);
+        Mat b = new Mat(image2, tile);
+        Mat diff = new Mat();
+        absdiff(a, b, diff);
+
+        Mat gray = toGray(diff);
+        Mat binary = new Mat();
+        threshold(gray, binary, options.getPixelThreshold(), 255, THRESH_BINARY);
+        if (tileMask != null) {
+            bitwise_and(binary, tileMask, binary);
+            tileMask.release();
+        }
+        a.release();
+        b.release();
+
+        int changed = countNonZero(binary);
+        if (changed > 0) {
+            MatVector contours = new MatVector();
+            Mat hierarchy = new Mat();
+            findContours(binary, contours, hierarchy, RETR_EXTERNAL, CHAIN_APPROX_SIMPLE);
+            for (long i = 0; i < contours.size(); i++) {
+                regions.add(Regions.offset(boundingRect(contours.get(i)), tile.x(), tile.y()));
+            }
+            hierarchy.release();
+            contours.deallocate();
+        }
+
+        if (gray != diff) {
+            gray.release();
+        }
+        diff.release();
+        binary.release();
+        return changed;
+    }
+
+    /** Drops merged regions smaller than the minimum area; they still count towards the diff. */
+    private static List<Rect> largeRegions(List<Rect> merged, ComparisonOptions options) {
+        List<Rect> large = new ArrayList<>(merged.size());
+        for (Rect region : merged) {
+            if (region.area() >= options.getMinRegionArea()) {
+                large.add(region);
+            }
+        }
+        return large;
+    }
+
+    private ComparisonResult compareSsim(Mat image1, Mat image2, Mat mask, ComparisonOptions options) {
+        double scale = options.getSsimScale();
+        Size small = new Size(Math.max(1, (int) Math.round(image1.cols() * scale)),
+            Math.max(1, (int) Math.round(image1.rows() * scale)));
+
+        Mat i1 = downscaleToFloat(image1, small);
+        Mat i2 = downscaleToFloat(image2, small);
+        Mat ssimMap = ssimMap(i1, i2);
+        i1.release();
+        i2.release();
+
+        Mat smallMask = null;
+        if (mask != null) {
+            smallMask = new Mat();
+            resize(mask, smallMask, small, 0, 0, INTER_NEAREST);
+        }
+
+        double similarity = smallMask == null ? mean(ssimMap).get(0) : mean(ssimMap, smallMask).get(0);
+
+        // Low local similarity marks a changed area
+        Mat low = new Mat();
+        threshold(ssimMap, low, options.getSsimRegionThreshold(), 255, THRESH_BINARY_INV);
+        Mat low8U = new Mat();
+        low.convertTo(low8U, CV_8U);
+        low.release();
+        ssimMap.release();
+        if (smallMask != null) {
+            bitwise_and(low8U, smallMask, low8U);
+        }
+
+        long comparedPixels = smallMask == null ? (long) small.width() * small.height() : countNonZero(smallMask);
+        long lowPixels = countNonZero(low8U);
+
+        List<Rect> regions = new ArrayList<>();
+        if (lowPixels > 0) {
+            MatVector contours = new MatVector();
+            Mat hierarchy = new Mat();
+            findContours(low8U, contours, hierarchy, RETR_EXTERNAL, CHAIN_APPROX_SIMPLE);
+            for (long i = 0; i < contours.size(); i++) {
+                Rect r = Regions.clip(Regions.scale(boundingRect(contours.get(i)), 1.0 / scale),
+                    image1.cols(), image1.rows());
+                if (r != null) {
+                    regions.add(r);
+                }
+            }
+            hierarchy.release();
+            contours.deallocate();
+        }
+        low8U.release();
+        if (smallMask != null) {
+            smallMask.release();
+        }
+
+        // Report counts in full-resolution pixels so callers can treat both modes alike. The SSIM map is
+        // computed in one go, so the budget cannot stop it early but is still checked on the result.
+        double areaFactor = 1.0 / (scale * scale);
+        long compared = Math.round(comparedPixels * areaFactor);
+        boolean exceeded = lowPixels > Math.floor(options.getMaxDiffRatio() * comparedPixels);
+        return new ComparisonResult(similarity, Math.round(lowPixels * areaFactor), compared, compared,
+            largeRegions(Regions.merge(regions, options.getMergeDistance()), options), exceeded);
+    }
+
+    private Mat ssimMap(Mat i1, Mat i2) {
+        Size window = new Size(11, 11);
+
+        Mat mu1 = new Mat();
+        Mat mu2 = new Mat();
+        GaussianBlur(i1, mu1, window, 1.5);
+        GaussianBlur(i2, mu2, window, 1.5);
+
+        Mat mu1Sq = new Mat();
+        Mat mu2Sq = new Mat();
+        Mat mu1Mu2 = new Mat();
+        multiply(mu1, mu1, mu1Sq);
+        multiply(mu2, mu2, mu2Sq);
+        multiply(mu1, mu2, mu1Mu2);
+        mu1.release();
+        mu2.release();
+
+        Mat sigma1Sq = blurredProduct(i1, i1, window, mu1Sq);
+        Mat sigma2Sq = blurredProduct(i2, i2, window, mu2Sq);
+        Mat sigma12 = blurredProduct(i1, i2, window, mu1Mu2);
+
+        // ((2*mu1*mu2 + C1) * (2*sigma12 + C2)) / ((mu1^2 + mu2^2 + C1) * (sigma1^2 + sigma2^2 + C2))
+        Mat t1 = new Mat();
+        Mat t2 = new Mat();
+        Mat numerator = new Mat();
+        mu1Mu2.convertTo(t1, -1, 2.0, SSIM_C1);
+        sigma12.convertTo(t2, -1, 2.0, SSIM_C2);
+        multiply(t1, t2, numerator);
+
+        Mat d1 = new Mat();
+        Mat d2 = new Mat();
+        Mat denominator = new Mat();
+        add(mu1Sq, mu2Sq, d1);
+        d1.convertTo(d1, -1, 1.0, SSIM_C1);
+        add(sigma1Sq, sigma2Sq, d2);
+        d2.convertTo(d2, -1, 1.0, SSIM_C2);
+        multiply(d1, d2, denominator);
+
+        Mat map = new Mat();
+        divide(numerator, denominator, map);
+
+        for (Mat m : new Mat[] {mu1Sq, mu2Sq, mu1Mu2, sigma1Sq, sigma2Sq, sigma12, t1, t2, numerator, d1, d2, denominator}) {
+            m.release();
+        }
+        return map;
+    }
+
+    private Mat blurredProduct(Mat a, Mat b, Size window, Mat meanProduct) {
+        Mat product = new Mat();
+        multiply(a, b, product);
+        Mat blurred = new Mat();
+        GaussianBlur(product, blurred, window, 1.5);
+        product.release();
+        Mat result = new Mat();
+        subtract(blurred, meanProduct, result);
+        blurred.release();
+        return result;
+    }
+
+    private Mat downscaleToFloat(Mat image, Size size) {
+        Mat gray = toGray(image);
+        Mat small = new Mat();
+        resize(gray, small, size, 0, 0, INTER_AREA);
+        if (gray != image) {
+            gray.release();
+        }
+        Mat result = new Mat();
+        small.convertTo(result, CV_32F);
+        small.release();
+        return result;
+    }
+
+    private Mat toGray(Mat image) {
+        if (image.channels() == 1) {
+            return image;
+        }
+        Mat gray = new Mat();
+        cvtColor(image, gray, image.channels() == 4 ? COLOR_BGRA2GRAY : COLOR_BGR2GRAY);
+        return gray;
+    }
+
+    /** Builds a compare mask (255 = compare, 0 = ignore), or null when nothing is ignored. */
+    private Mat buildMask(int cols, int rows, List<Rect> ignoreRegions) {
+        if (ignoreRegions.isEmpty()) {
+            return null;
+        }
+        Mat mask = new Mat(rows, cols, CV_8UC1, new Scalar(255.0));
+        for (Rect region : ignoreRegions) {
+            Rect clipped = Regions.clip(region, cols, rows);
+            if (clipped != null) {
+                new Mat(mask, clipped).put(new Scalar(0.0));
+            }
+        }
+        return mask;
+    }
+}
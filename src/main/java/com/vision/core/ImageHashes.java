@@ -0,0 +1,72 @@
+package com.vision.core;
+
+import org.bytedeco.javacpp.indexer.UByteIndexer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+/**
+ * Hashes used to short-circuit image comparisons: an exact content hash over the raw pixels and a
+ * 64-bit difference hash (dHash) that stays stable under small rendering changes.
+ */
+public final class ImageHashes {
+    private ImageHashes() {
+    }
+
+    /** SHA-256 of the pixel data, prefixed with the geometry so equal bytes of a different shape never collide. */
+    public static String contentHash(Mat image) {
+        Mat continuous = image.isContinuous() ? image : image.clone();
+        byte[] data = new byte[(int) (continuous.total() * continuous.elemSize())];
+        continuous.data().get(data);
+        if (continuous != image) {
+            continuous.release();
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((image.cols() + "x" + image.rows() + "x" + image.type() + ":").getBytes());
+            digest.update(data);
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** 64-bit difference hash: one bit per horizontally adjacent pair in a 9x8 grayscale thumbnail. */
+    public static long differenceHash(Mat image) {
+        Mat gray = new Mat();
+        if (image.channels() == 1) {
+            image.copyTo(gray);
+        } else {
+            cvtColor(image, gray, image.channels() == 4 ? COLOR_BGRA2GRAY : COLOR_BGR2GRAY);
+        }
+        Mat small = new Mat();
+        resize(gray, small, new Size(9, 8), 0, 0, INTER_AREA);
+        gray.release();
+
+        long hash = 0;
+        UByteIndexer indexer = small.createIndexer();
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                hash <<= 1;
+                if (indexer.get(y, x) > indexer.get(y, x + 1)) {
+                    hash |= 1;
+                }
+            }
+        }
+        indexer.release();
+        small.release();
+        return hash;
+    }
+
+    public static int hammingDistance(long hash1, long hash2) {
+        return Long.bitCount(hash1 ^ hash2);
+    }
+}
@@ -0,0 +1,263 @@
+package com.vision.core;
+
+import lombok.extern.slf4j.Slf4j;
+import net.sourceforge.tess4j.Tesseract;
+import org.bytedeco.javacpp.Loader;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Scalar;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC1;
+import static org.bytedeco.opencv.global.opencv_imgproc.TM_CCOEFF_NORMED;
+import static org.bytedeco.opencv.global.opencv_imgproc.matchTemplate;
+
+/**
+ * Process-wide native setup shared by {@link VisionQuery} and the mobile query classes.
+ * <p>
+ * The first call to {@link #get()} loads OpenCV, locates the Tesseract shared libraries and the
+ * {@code tessdata} directory for the current platform, and points JNA at them. The tessdata lookup order is:
+ * <ol>
+ *     <li>the {@code vision.tesseract.data.path} system property</li>
+ *     <li>{@code vision.tesseract.data.path} in {@code config.properties} on the classpath</li>
+ *     <li>the {@code TESSDATA_PREFIX} environment variable</li>
+ *     <li>the usual Homebrew, Debian/Ubuntu, Fedora and Windows install locations</li>
+ * </ol>
+ * Candidates that do not exist are skipped. Extra library directories can be given with
+ * {@code vision.native.library.path} (path-separator delimited).
+ * <p>
+ * OCR engines are shared by the whole JVM: {@link #ocrEngines(String)} holds at most
+ * {@code vision.ocr.engines} engines per language (default: the CPU count, the size of the compute pool of
+ * {@code AsyncMobileVisionQuery}), and they are ended by a shutdown hook.
+ */
+@Slf4j
+public final class NativeRuntime {
+    public static final String TESSDATA_PROPERTY = "vision.tesseract.data.path";
+    public static final String LIBRARY_PATH_PROPERTY = "vision.native.library.path";
+    public static final String OCR_ENGINES_PROPERTY = "vision.ocr.engines";
+
+    private static final List<String> MAC_TESSDATA = Arrays.asList(
+        "/opt/homebrew/share/tessdata", "/usr/local/share/tessdata");
+    private static final List<String> LINUX_TESSDATA = Arrays.asList(
+        "/usr/share/tesseract-ocr/5/tessdata", "/usr/share/tesseract-ocr/4.00/tessdata",
+        "/usr/share/tessdata", "/usr/local/share/tessdata");
+    private static final List<String> WINDOWS_TESSDATA = Arrays.asList(
+        "C:\\Program Files\\Tesseract-OCR\\tessdata");
+
+    private static final List<String> MAC_LIBRARIES = Arrays.asList("/opt/homebrew/lib", "/usr/local/lib");
+    private static final List<String> LINUX_LIBRARIES = Arrays.asList(
+        "/usr/lib/x86_64-linux-gnu", "/usr/lib/aarch64-linux-gnu", "/usr/lib64", "/usr/lib", "/usr/local/lib");
+    private static final List<String> WINDOWS_LIBRARIES = Arrays.asList("C:\\Program Files\\Tesseract-OCR");
+
+    private final String tessDataPath;
+    private final List<String> libraryDirectories;
+    private final Set<String> warmedUp = ConcurrentHashMap.newKeySet();
+    private final int engineCapacity;
+    private final Map<String, OcrEnginePool> engines = new ConcurrentHashMap<>();
+
+    private static class Holder {
+        private static final NativeRuntime INSTANCE = new NativeRuntime();
+    }
+
+    public static NativeRuntime get() {
+        return Holder.INSTANCE;
+    }
+
+    private NativeRuntime() {
+        long start = System.currentTimeMillis();
+        try {
+            Loader.load(opencv_core.class);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to load OpenCV", e);
+        }
+
+        String os = System.getProperty("os.name", "").toLowerCase();
+        libraryDirectories = discoverLibraryDirectories(os);
+        if (!libraryDirectories.isEmpty()) {
+            String existing = System.getProperty("jna.library.path");
+            String joined = String.join(File.pathSeparator, libraryDirectories);
+            System.setProperty("jna.library.path",
+                existing == null || existing.isEmpty() ? joined : existing + File.pathSeparator + joined);
+        }
+        if (System.getProperty("jna.encoding") == null) {
+            System.setProperty("jna.encoding", "UTF8");
+        }
+        tessDataPath = discoverTessData(os);
+        engineCapacity = Integer.getInteger(OCR_ENGINES_PROPERTY, Runtime.getRuntime().availableProcessors());
+        Runtime.getRuntime().addShutdownHook(new Thread(this::closeOcrEngines, "vision-ocr-shutdown"));
+
+        log.info("Native runtime ready in {} ms (os={}, arch={}, tessdata={}, libraries={})",
+            System.currentTimeMillis() - start, os, System.getProperty("os.arch"), tessDataPath, libraryDirectories);
+    }
+
+    public String getTessDataPath() {
+        return tessDataPath;
+    }
+
+    public List<String> getLibraryDirectories() {
+        return libraryDirectories;
+    }
+
+    /** Creates a Tesseract instance pointing at the discovered tessdata directory. */
+    public Tesseract newTesseract(String language) {
+        Tesseract tesseract = new Tesseract();
+        tesseract.setDatapath(tessDataPath);
+        tesseract.setLanguage(language);
+        tesseract.setOcrEngineMode(1); // LSTM_ONLY mode
+        return tesseract;
+    }
+
+    /**
+     * The shared engines for {@code language}. Borrow one per recognition and return it in a {@code finally}
+     * block; a thread waits only when every engine of the language is busy.
+     */
+    public OcrEnginePool ocrEngines(String language) {
+        return engines.computeIfAbsent(language, key -> new OcrEnginePool(tessDataPath, key, engineCapacity));
+    }
+
+    /** Ends every idle OCR engine now and every borrowed one when it is returned. */
+    public void closeOcrEngines() {
+        engines.values().forEach(OcrEnginePool::close);
+    }
+
+    /**
+     * Runs a throwaway template match and creates every engine of the shared pool for {@code language},
+     * each reading a sample once, so native libraries, traineddata files and JIT-compiled paths are loaded
+     * before the first real query on any thread. Only the first call per language does any work.
+     */
+    public synchronized void warmUp(String language) {
+        if (warmedUp.contains(language)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+
+        Mat screen = new Mat(64, 64, CV_8UC1, new Scalar(255.0));
+        Mat template = new Mat(16, 16, CV_8UC1, new Scalar(0.0));
+        Mat result = new Mat();
+        matchTemplate(screen, template, result, TM_CCOEFF_NORMED);
+        screen.release();
+        template.release();
+        result.release();
+
+        BufferedImage image = new BufferedImage(120, 40, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.setColor(Color.BLACK);
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 24));
+        g.drawString("0123", 10, 30);
+        g.dispose();
+        Mat text = new Mat(image.getHeight(), image.getWidth(), CV_8UC1);
+        text.data().put(((DataBufferByte) image.getRaster().getDataBuffer()).getData());
+        OcrEnginePool pool = ocrEngines(language);
+        try {
+            // Best effort: the pool logs engines that fail, real queries report their own errors
+            pool.fill(engine -> engine.recognize(text));
+        } finally {
+            text.release();
+        }
+
+        warmedUp.add(language);
+        log.info("Vision warm-up for {} finished in {} ms ({} engines)", language,
+            System.currentTimeMillis() - start, pool.getCreated());
+    }
+
+    public void warmUp() {
+        warmUp("eng");
+    }
+
+    public boolean isWarmedUp(String language) {
+        return warmedUp.contains(language);
+    }
+
+    public boolean isWarmedUp() {
+        return isWarmedUp("eng");
+    }
+
+    private List<String> discoverLibraryDirectories(String os) {
+        List<String> candidates = new ArrayList<>();
+        String configured = System.getProperty(LIBRARY_PATH_PROPERTY);
+        if (configured != null && !configured.isEmpty()) {
+            candidates.addAll(Arrays.asList(configured.split(File.pathSeparator)));
+        }
+        candidates.addAll(platformDefaults(os, MAC_LIBRARIES, LINUX_LIBRARIES, WINDOWS_LIBRARIES));
+
+        List<String> found = new ArrayList<>();
+        for (String dir : candidates) {
+            File[] libraries = new File(dir).listFiles((d, name) -> name.startsWith("libtesseract")
+                || name.startsWith("tesseract") && name.endsWith(".dll"));
+            if (libraries != null && libraries.length > 0 && !found.contains(dir)) {
+                found.add(dir);
+            }
+        }
+        return found;
+    }
+
+    private String discoverTessData(String os) {
+        List<String> candidates = new ArrayList<>();
+        addIfSet(candidates, System.getProperty(TESSDATA_PROPERTY));
+        addIfSet(candidates, configuredTessData());
+        String prefix = System.getenv("TESSDATA_PREFIX");
+        if (prefix != null && !prefix.isEmpty()) {
+            candidates.add(prefix);
+            candidates.add(new File(prefix, "tessdata").getPath());
+        }
+        candidates.addAll(platformDefaults(os, MAC_TESSDATA, LINUX_TESSDATA, WINDOWS_TESSDATA));
+
+        for (String candidate : candidates) {
+            File[] models = new File(candidate).listFiles((d, name) -> name.endsWith(".traineddata"));
+            if (models != null && models.length > 0) {
+                return candidate;
+            }
+            log.debug("No traineddata in {}", candidate);
+        }
+        String fallback = candidates.get(0);
+        log.warn("No tessdata directory found, falling back to {}. Set -D{} to override", fallback, TESSDATA_PROPERTY);
+        return fallback;
+    }
+
+    private String configuredTessData() {
+        try (InputStream in = NativeRuntime.class.getClassLoader().getResourceAsStream("config.properties")) {
+            if (in == null) {
+                return null;
+            }
+            Properties config = new Properties();
+            config.load(in);
+            return config.getProperty(TESSDATA_PROPERTY);
+        } catch (IOException e) {
+            log.warn("Could not read config.properties: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void addIfSet(List<String> candidates, String value) {
+        if (value != null && !value.isEmpty()) {
+            candidates.add(value);
+        }
+    }
+
+    private static List<String> platformDefaults(String os, List<String> mac, List<String> linux, List<String> windows) {
+        if (os.contains("mac") || os.contains("darwin")) {
+            return mac;
+        }
+        if (os.contains("win")) {
+            return windows;
+        }
+        return linux;
+    }
+}
@@ -0,0 +1,131 @@
+package com.vision.core;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.javacpp.BoolPointer;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.DoublePointer;
+import org.bytedeco.javacpp.IntPointer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.tesseract.TessBaseAPI;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8U;
+import static org.bytedeco.tesseract.global.tesseract.OEM_LSTM_ONLY;
+
+/**
+ * A resident Tesseract engine: the traineddata for its language is loaded once by {@code Init} and every
+ * recognition only sets a new image on it. Engines are not thread-safe; borrow one at a time from
+ * {@link NativeRuntime#ocrEngines(String)}.
+ * <p>
+ * Tesseract keeps variables between calls, so {@link #configure(int, Map)} remembers which variables it set
+ * and restores a variable to the value it had before the first override once a later call no longer sets it.
+ */
+@Slf4j
+public final class OcrEngine implements AutoCloseable {
+    private final String language;
+    private final TessBaseAPI api;
+    private final Map<String, String> defaults = new HashMap<>();
+    private final Map<String, String> applied = new HashMap<>();
+
+    OcrEngine(String dataPath, String language) {
+        long start = System.currentTimeMillis();
+        this.language = language;
+        this.api = new TessBaseAPI();
+        if (api.Init(dataPath, language, OEM_LSTM_ONLY) != 0) {
+            api.close();
+            throw new IllegalStateException("Could not initialise Tesseract for " + language + " from " + dataPath);
+        }
+        log.debug("Tesseract engine for {} initialised in {} ms on {}", language,
+            System.currentTimeMillis() - start, Thread.currentThread().getName());
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    /**
+     * Sets the page segmentation mode and exactly {@code variables}: variables set by an earlier call but
+     * missing from this one go back to their defaults.
+     */
+    public void configure(int pageSegMode, Map<String, String> variables) {
+        api.SetPageSegMode(pageSegMode);
+
+        Iterator<Map.Entry<String, String>> stale = applied.entrySet().iterator();
+        while (stale.hasNext()) {
+            String name = stale.next().getKey();
+            if (!variables.containsKey(name)) {
+                String original = defaults.get(name);
+                if (original != null) {
+                    api.SetVariable(name, original);
+                }
+                stale.remove();
+            }
+        }
+
+        for (Map.Entry<String, String> variable : variables.entrySet()) {
+            String name = variable.getKey();
+            String value = variable.getValue();
+            if (value.equals(applied.get(name))) {
+                continue;
+            }
+            if (!defaults.containsKey(name)) {
+                defaults.put(name, currentValue(name));
+            }
+            if (!api.SetVariable(name, value)) {
+                log.debug("Tesseract rejected variable {}={}", name, value);
+            }
+            applied.put(name, value);
+        }
+    }
+
+    /** Recognises an 8-bit single-channel image and returns the UTF-8 text. */
+    public String recognize(Mat gray) {
+        if (gray.depth() != CV_8U || gray.channels() != 1) {
+            throw new IllegalArgumentException("OCR needs an 8-bit single-channel image");
+        }
+        api.SetImage(gray.data(), gray.cols(), gray.rows(), 1, (int) gray.step());
+        BytePointer text = api.GetUTF8Text();
+        try {
+            return text == null || text.isNull() ? "" : text.getString(StandardCharsets.UTF_8);
+        } finally {
+            if (text != null) {
+                text.deallocate();
+            }
+            api.Clear();
+        }
+    }
+
+    /** The current value of a Tesseract variable as a string, or null when the variable is unknown. */
+    private String currentValue(String name) {
+        BytePointer text = api.GetStringVariable(name);
+        if (text != null && !text.isNull()) {
+            return text.getString(StandardCharsets.UTF_8);
+        }
+        try (IntPointer value = new IntPointer(1)) {
+            if (api.GetIntVariable(name, value)) {
+                return String.valueOf(value.get());
+            }
+        }
+        try (BoolPointer value = new BoolPointer(1)) {
+            if (api.GetBoolVariable(name, value)) {
+                return value.get() ? "1" : "0";
+            }
+        }
+        try (DoublePointer value = new DoublePointer(1)) {
+            if (api.GetDoubleVariable(name, value)) {
+                return String.valueOf(value.get());
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        api.End();
+        api.close();
+    }
+}
@@ -0,0 +1,177 @@
+package com.vision.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * At most {@code capacity} resident {@link OcrEngine}s for one language, shared by every thread of the JVM.
+ * Engines are created on demand; once all of them are busy {@link #borrow()} waits for one to be returned,
+ * so memory and {@code Init} cost are bounded by the capacity rather than by the number of threads that
+ * ever run OCR:
+ * <pre>
+ * OcrEngine engine = pool.borrow();
+ * try {
+ *     text = engine.recognize(gray);
+ * } finally {
+ *     pool.release(engine);
+ * }
+ * </pre>
+ * {@link #close()} ends the idle engines at once and every borrowed engine when it is returned.
+ */
+@Slf4j
+public final class OcrEnginePool implements AutoCloseable {
+    private static final long WAIT_MILLIS = 100;
+
+    private final String dataPath;
+    private final String language;
+    private final int capacity;
+    private final BlockingQueue<OcrEngine> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger created = new AtomicInteger();
+    private volatile boolean closed;
+
+    OcrEnginePool(String dataPath, String language, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.dataPath = dataPath;
+        this.language = language;
+        this.capacity = capacity;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** Engines created so far; never more than {@link #getCapacity()}. */
+    public int getCreated() {
+        return created.get();
+    }
+
+    /**
+     * An idle engine, a new one while the pool is below capacity, or otherwise the next engine returned by
+     * another thread. The engine must be handed back with {@link #release(OcrEngine)}.
+     */
+    public OcrEngine borrow() {
+        try {
+            while (true) {
+                if (closed) {
+                    throw new IllegalStateException("OCR engines for " + language + " are closed");
+                }
+                OcrEngine engine = idle.poll();
+                if (engine != null) {
+                    return engine;
+                }
+                int count = created.get();
+                if (count < capacity) {
+                    if (created.compareAndSet(count, count + 1)) {
+                        return create();
+                    }
+                    continue;
+                }
+                // Timed, so a failed creation elsewhere or close() never leaves this thread waiting forever
+                engine = idle.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                if (engine != null) {
+                    return engine;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an OCR engine", e);
+        }
+    }
+
+    private OcrEngine create() {
+        OcrEngine engine;
+        try {
+            engine = new OcrEngine(dataPath, language);
+        } catch (RuntimeException e) {
+            created.decrementAndGet();
+            throw e;
+        }
+        if (closed) {
+            engine.close();
+            throw new IllegalStateException("OCR engines for " + language + " are closed");
+        }
+        return engine;
+    }
+
+    /** Returns a borrowed engine to the pool, or ends it when the pool has been closed meanwhile. */
+    public void release(OcrEngine engine) {
+        if (closed) {
+            engine.close();
+            return;
+        }
+        idle.add(engine);
+        // close() may have drained the queue between the check and the add
+        if (closed && idle.remove(engine)) {
+            engine.close();
+        }
+    }
+
+    /**
+     * Creates every engine up front, in parallel, and passes each to {@code warmUp} once, so no later
+     * {@link #borrow()} pays for {@code Init}. Waits while other threads hold engines.
+     */
+    public void fill(Consumer<OcrEngine> warmUp) {
+        ExecutorService starters = Executors.newFixedThreadPool(capacity, runnable -> {
+            Thread thread = new Thread(runnable, "vision-ocr-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Every engine stays borrowed until all are warm, so each task gets a different one
+        CountDownLatch warmed = new CountDownLatch(capacity);
+        for (int i = 0; i < capacity; i++) {
+            starters.execute(() -> {
+                OcrEngine engine = null;
+                try {
+                    engine = borrow();
+                    warmUp.accept(engine);
+                } catch (RuntimeException e) {
+                    log.warn("Warming up an OCR engine for {} failed: {}", language, e.getMessage());
+                } finally {
+                    warmed.countDown();
+                }
+                if (engine == null) {
+                    return;
+                }
+                try {
+                    warmed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    release(engine);
+                }
+            });
+        }
+        starters.shutdown();
+        try {
+            while (!starters.awaitTermination(1, TimeUnit.SECONDS)) {
+                log.debug("Waiting for {} OCR engines for {} to warm up", capacity, language);
+            }
+        } catch (InterruptedException e) {
+            starters.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        OcrEngine engine;
+        while ((engine = idle.poll()) != null) {
+            engine.close();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.vision.core;
+
+import org.bytedeco.opencv.opencv_core.Rect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Small rectangle helpers shared by the comparison and incremental-analysis code.
+ */
+public final class Regions {
+    private Regions() {
+    }
+
+    public static boolean intersects(Rect a, Rect b) {
+        return a.x() < b.x() + b.width() && b.x() < a.x() + a.width()
+            && a.y() < b.y() + b.height() && b.y() < a.y() + a.height();
+    }
+
+    /** True when the rectangles overlap or are at most {@code gap} pixels apart. */
+    public static boolean near(Rect a, Rect b, int gap) {
+        return a.x() <= b.x() + b.width() + gap && b.x() <= a.x() + a.width() + gap
+            && a.y() <= b.y() + b.height() + gap && b.y() <= a.y() + a.height() + gap;
+    }
+
+    public static Rect union(Rect a, Rect b) {
+        int x = Math.min(a.x(), b.x());
+        int y = Math.min(a.y(), b.y());
+        int right = Math.max(a.x() + a.width(), b.x() + b.width());
+        int bottom = Math.max(a.y() + a.height(), b.y() + b.height());
+        return new Rect(x, y, right - x, bottom - y);
+    }
+
+    /** Clips a rectangle to a {@code cols x rows} frame; returns null when nothing is left. */
+    public static Rect clip(Rect r, int cols, int rows) {
+        int x = Math.max(0, r.x());
+        int y = Math.max(0, r.y());
+        int right = Math.min(cols, r.x() + r.width());
+        int bottom = Math.min(rows, r.y() + r.height());
+        if (right <= x || bottom <= y) {
+            return null;
+        }
+        return new Rect(x, y, right - x, bottom - y);
+    }
+
+    public static Rect offset(Rect r, int dx, int dy) {
+        return new Rect(r.x() + dx, r.y() + dy, r.width(), r.height());
+    }
+
+    public static Rect scale(Rect r, double factor) {
+        return new Rect((int) Math.floor(r.x() * factor), (int) Math.floor(r.y() * factor),
+            (int) Math.ceil(r.width() * factor), (int) Math.ceil(r.height() * factor));
+    }
+
+    /**
+     * Unions rectangles that are within {@code gap} pixels of each other until no two results are that
+     * close. Each pass sweeps the rectangles in x order, so only rectangles whose x ranges are within
+     * {@code gap} are tested against each other, and joins neighbours with union-find. A union can grow
+     * close to a rectangle neither part was close to, so passes repeat until nothing merges; usually
+     * that is one or two passes.
+     */
+    public static List<Rect> merge(List<Rect> regions, int gap) {
+        List<Rect> merged = new ArrayList<>(regions);
+        int before;
+        do {
+            before = merged.size();
+            merged = mergePass(merged, gap);
+        } while (merged.size() < before);
+        return merged;
+    }
+
+    private static List<Rect> mergePass(List<Rect> regions, int gap) {
+        int n = regions.size();
+        int[] parent = new int[n];
+        Integer[] byX = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            byX[i] = i;
+        }
+        Arrays.sort(byX, Comparator.comparingInt(i -> regions.get(i).x()));
+
+        List<Integer> active = new ArrayList<>();
+        for (int index : byX) {
+            Rect r = regions.get(index);
+            active.removeIf(a -> regions.get(a).x() + regions.get(a).width() + gap < r.x());
+            for (int a : active) {
+                if (near(regions.get(a), r, gap)) {
+                    parent[find(parent, a)] = find(parent, index);
+                }
+            }
+            active.add(index);
+        }
+
+        // Components keep the position of their first member
+        Map<Integer, Rect> components = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            components.merge(find(parent, i), regions.get(i), Regions::union);
+        }
+        return new ArrayList<>(components.values());
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+}
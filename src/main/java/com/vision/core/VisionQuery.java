@@ -26,38 +26,12 @@ import java.util.List;
 @Slf4j
 public class VisionQuery {
     private final ITesseract tesseract;
+    private final ImageComparator imageComparator = new ImageComparator();
 
     public VisionQuery() {
-        // Set system properties for JNA
-        String libraryPath = "/System/Volumes/Data/opt/homebrew/lib";
-        String leptonicaPath = "/System/Volumes/Data/opt/homebrew/Cellar/tesseract/5.5.0/lib";
-        
-        // Set library paths
-        System.setProperty("jna.library.path", libraryPath + ":" + leptonicaPath);
-        System.setProperty("jna.platform.library.path", libraryPath + ":" + leptonicaPath);
-        System.setProperty("java.library.path", libraryPath + ":" + leptonicaPath);
-        
-        // Additional JNA settings
-        System.setProperty("jna.encoding", "UTF8");
-        System.setProperty("jna.platform", "darwin-aarch64");
-        System.setProperty("jna.debug_load", "true");
-
-        // Initialize Tesseract
-        tesseract = new Tesseract();
-        tesseract.setDatapath("/opt/homebrew/share/tessdata");
-        tesseract.setLanguage("eng");
-        tesseract.setOcrEngineMode(1); // LSTM_ONLY mode
+        // Native libraries and tessdata are located once per JVM
+        tesseract = NativeRuntime.get().newTesseract("eng");
         tesseract.setPageSegMode(3); // PSM_AUTO
-
-        // Log system information for debugging
-        log.info("System architecture: {}", System.getProperty("os.arch"));
-        log.info("JNA library path: {}", System.getProperty("jna.library.path"));
-        log.info("JNA platform library path: {}", System.getProperty("jna.platform.library.path"));
-        log.info("JNA platform: {}", System.getProperty("jna.platform"));
-        log.info("Java library path: {}", System.getProperty("java.library.path"));
-
-        // Ensure Tesseract data path includes Hindi language data
-        tesseract.setDatapath("/opt/homebrew/share/tessdata"); // Confirm this path contains 'hin.traineddata'
     }
 
     public String findText(File imageFile) throws TesseractException {
@@ -168,6 +142,10 @@ public class VisionQuery {
         return 1.0 - ((double) nonZero / total);
     }
 
+    public ComparisonResult compareImages(Mat image1, Mat image2, ComparisonOptions options) {
+        return imageComparator.compare(image1, image2, options);
+    }
+
     public void saveDebugImage(Mat image, String filename) {
         imwrite(filename, image);
     }
@@ -0,0 +1,165 @@
+package com.vision.core;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Accumulates time spent in each vision stage for the code running inside a {@link Scope}, typically one
+ * test method. Instrumented code calls {@link #record(Stage, long)} with the {@link System#nanoTime()} taken
+ * at the start of the stage; without an open scope the call only costs a thread-local lookup.
+ * <p>
+ * Work is attributed to the scope opened on the current thread. Tasks handed to other threads carry the
+ * scope along only when wrapped with {@link #propagate(Supplier)} or {@link #propagate(Function)} (as
+ * {@code AsyncMobileVisionQuery} does); otherwise their time is not recorded. Time recorded after a scope
+ * was closed is dropped.
+ */
+public final class VisionTimings {
+    public enum Stage { CAPTURE, DECODE, PREPROCESS, MATCH, OCR }
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private VisionTimings() {
+    }
+
+    /**
+     * Opens a scope on the current thread; close it to stop accumulating. Scopes nest: closing one makes
+     * the scope that was current when it was opened current again.
+     */
+    public static Scope start() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /** The scope open on the current thread, or null. */
+    public static Scope current() {
+        return CURRENT.get();
+    }
+
+    /** Adds the time since {@code startNanos} to {@code stage} of the current scope. */
+    public static void record(Stage stage, long startNanos) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.add(stage, System.nanoTime() - startNanos);
+        }
+    }
+
+    /** Wraps {@code task} so that, on whichever thread it runs, it records into the scope current now. */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return task;
+        }
+        return () -> {
+            Scope previous = CURRENT.get();
+            CURRENT.set(scope);
+            try {
+                return task.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /** Function counterpart of {@link #propagate(Supplier)}, for {@code thenApplyAsync} stages. */
+    public static <T, R> Function<T, R> propagate(Function<T, R> task) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return task;
+        }
+        return value -> {
+            Scope previous = CURRENT.get();
+            CURRENT.set(scope);
+            try {
+                return task.apply(value);
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void restore(Scope previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /** Per-stage totals and call counts of one scope. */
+    public static final class Scope implements AutoCloseable {
+        private final LongAdder[] nanos = new LongAdder[Stage.values().length];
+        private final LongAdder[] counts = new LongAdder[Stage.values().length];
+        private final Scope parent;
+        private volatile boolean closed;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+            for (int i = 0; i < nanos.length; i++) {
+                nanos[i] = new LongAdder();
+                counts[i] = new LongAdder();
+            }
+        }
+
+        void add(Stage stage, long elapsedNanos) {
+            if (closed) {
+                return;
+            }
+            nanos[stage.ordinal()].add(elapsedNanos);
+            counts[stage.ordinal()].increment();
+        }
+
+        public long getNanos(Stage stage) {
+            return nanos[stage.ordinal()].sum();
+        }
+
+        public long getCount(Stage stage) {
+            return counts[stage.ordinal()].sum();
+        }
+
+        public long getTotalNanos() {
+            long total = 0;
+            for (LongAdder adder : nanos) {
+                total += adder.sum();
+            }
+            return total;
+        }
+
+        /** Milliseconds per stage, in stage order. */
+        public Map<Stage, Double> toMillis() {
+            Map<Stage, Double> millis = new EnumMap<>(Stage.class);
+            for (Stage stage : Stage.values()) {
+                millis.put(stage, getNanos(stage) / 1e6);
+            }
+            return millis;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            if (CURRENT.get() == this) {
+                // Skip parents that were closed in the meantime
+                Scope previous = parent;
+                while (previous != null && previous.closed) {
+                    previous = previous.parent;
+                }
+                restore(previous);
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format("%.1f ms", getTotalNanos() / 1e6));
+            for (Stage stage : Stage.values()) {
+                if (getCount(stage) > 0) {
+                    sb.append(String.format(", %s %.1f ms/%d", stage.name().toLowerCase(), getNanos(stage) / 1e6,
+                        getCount(stage)));
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.vision.mobile;
+
+import com.vision.core.VisionTimings;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Non-blocking facade over {@link MobileVisionQuery}.
+ * <p>
+ * Screenshot transfer runs on an I/O executor (virtual threads when the JVM offers them, a cached
+ * daemon pool on Java 11-20) while decoding, preprocessing, matching and OCR run on a bounded compute
+ * pool sized to the CPU count. When the pool's queue is full, submitting threads wait for room rather than
+ * running decode or OCR themselves, so compute work never leaves the pool. This lets a test overlap fetching the next screenshot with analysing the
+ * current one:
+ * <pre>
+ * try (AsyncMobileVisionQuery async = new AsyncMobileVisionQuery(visionQuery)) {
+ *     List&lt;String&gt; scores = async.pollAsync(5, screen -&gt; visionQuery.performOCR(screen, scoreRegion)).join();
+ * }
+ * </pre>
+ * Every OCR call borrows one of the JVM's shared Tesseract engines, so regions are read in parallel.
+ * Calls made through this class never write debug images: the profile's fixed {@code debug_*.png} names
+ * would be overwritten by concurrent calls. After {@link #close()} new calls fail with
+ * {@link RejectedExecutionException}, and a cancelled {@link #pollAsync} stops capturing further screens.
+ * Pool work is recorded into the {@link VisionTimings} scope of the thread that made the call.
+ */
+@Slf4j
+public class AsyncMobileVisionQuery implements AutoCloseable {
+    private static final int COMPUTE_QUEUE_CAPACITY = 64;
+
+    private final MobileVisionQuery visionQuery;
+    private final ExecutorService ioExecutor;
+    private final ExecutorService computeExecutor;
+    private final boolean ownsExecutors;
+
+    public AsyncMobileVisionQuery(MobileVisionQuery visionQuery) {
+        this(visionQuery, newIoExecutor(), newComputeExecutor(Runtime.getRuntime().availableProcessors()), true);
+    }
+
+    /** Uses caller-managed executors; they are not shut down by {@link #close()}. */
+    public AsyncMobileVisionQuery(MobileVisionQuery visionQuery, ExecutorService ioExecutor, ExecutorService computeExecutor) {
+        this(visionQuery, ioExecutor, computeExecutor, false);
+    }
+
+    private AsyncMobileVisionQuery(MobileVisionQuery visionQuery, ExecutorService ioExecutor,
+                                   ExecutorService computeExecutor, boolean ownsExecutors) {
+        this.visionQuery = visionQuery;
+        this.ioExecutor = ioExecutor;
+        this.computeExecutor = computeExecutor;
+        this.ownsExecutors = ownsExecutors;
+    }
+
+    /** Fetches the encoded screenshot on the I/O executor. */
+    public CompletableFuture<byte[]> captureAsync() {
+        return CompletableFuture.supplyAsync(VisionTimings.propagate(visionQuery::captureScreenshot), ioExecutor);
+    }
+
+    /**
+     * Fetches a screenshot on the I/O executor and decodes it on the compute pool. Frames from a
+     * {@link FrameSource} are already decoded and are passed through without an encode/decode round trip.
+     */
+    public CompletableFuture<Mat> screenAsync() {
+        return fetchAsync().thenApplyAsync(VisionTimings.propagate(this::toScreen), computeExecutor);
+    }
+
+    private CompletableFuture<Capture> fetchAsync() {
+        return CompletableFuture.supplyAsync(VisionTimings.propagate(() -> visionQuery.hasFrameSource()
+            ? new Capture(null, currentScreen())
+            : new Capture(visionQuery.captureScreenshot(), null)), ioExecutor);
+    }
+
+    private Mat currentScreen() {
+        try {
+            return visionQuery.getCurrentScreenAsMat();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Mat toScreen(Capture capture) {
+        return capture.screen != null ? capture.screen : decode(capture.bytes);
+    }
+
+    public CompletableFuture<Mat> preprocessAsync(Mat image) {
+        return CompletableFuture.supplyAsync(VisionTimings.propagate(() -> visionQuery.preprocessImage(image, profile())),
+            computeExecutor);
+    }
+
+    public CompletableFuture<String> performOCRAsync(Mat image, Rect region) {
+        return CompletableFuture.supplyAsync(VisionTimings.propagate(() -> visionQuery.performOCR(image, region, profile())),
+            computeExecutor);
+    }
+
+    public CompletableFuture<String> performOCRAsync(CompletableFuture<Mat> image, Rect region) {
+        return image.thenApplyAsync(VisionTimings.propagate(screen -> visionQuery.performOCR(screen, region, profile())),
+            computeExecutor);
+    }
+
+    public CompletableFuture<Boolean> findLogoInRegionAsync(Mat image, Rect region, Mat template) {
+        return CompletableFuture.supplyAsync(
+            VisionTimings.propagate(() -> visionQuery.findLogoInRegion(image, region, template, profile())),
+            computeExecutor);
+    }
+
+    /** The query's current profile with debug images turned off. */
+    private OcrProfile profile() {
+        OcrProfile profile = visionQuery.getOcrProfile();
+        return profile.isDebugImages() ? profile.copy().setDebugImages(false) : profile;
+    }
+
+    /**
+     * Reads several regions of the same screen in parallel, each on its own pool thread and engine. The
+     * map iterates in the order of {@code regions}.
+     */
+    public CompletableFuture<Map<String, String>> readRegionsAsync(Mat image, Map<String, Rect> regions) {
+        Map<String, CompletableFuture<String>> pending = new LinkedHashMap<>();
+        regions.forEach((name, region) -> pending.put(name, performOCRAsync(image, region)));
+        return CompletableFuture.allOf(pending.values().toArray(new CompletableFuture[0]))
+            .thenApply(ignored -> {
+                Map<String, String> texts = new LinkedHashMap<>();
+                pending.forEach((name, future) -> texts.put(name, future.join()));
+                return texts;
+            });
+    }
+
+    /**
+     * Captures {@code count} consecutive screens and applies {@code analysis} to each. The capture of
+     * screen {@code n + 1} starts as soon as screen {@code n} has arrived, so it overlaps the analysis of
+     * screen {@code n}. Each screen Mat is released after its analysis. Cancelling the returned future (or
+     * any capture or analysis failing) cancels the captures and analyses that have not started yet.
+     */
+    public <T> CompletableFuture<List<T>> pollAsync(int count, Function<Mat, T> analysis) {
+        List<CompletableFuture<T>> results = new ArrayList<>(count);
+        List<CompletableFuture<Capture>> captures = new ArrayList<>(count);
+        CompletableFuture<Capture> capture = fetchAsync();
+        for (int i = 0; i < count; i++) {
+            captures.add(capture);
+            CompletableFuture<Capture> current = capture;
+            results.add(current.thenApplyAsync(VisionTimings.propagate((Capture fetched) -> {
+                Mat screen = toScreen(fetched);
+                try {
+                    return analysis.apply(screen);
+                } finally {
+                    screen.release();
+                }
+            }), computeExecutor));
+            if (i + 1 < count) {
+                // fetchAsync runs on the I/O thread and picks up the scope from there
+                capture = current.thenComposeAsync(
+                    VisionTimings.propagate((Capture ignored) -> fetchAsync()), ioExecutor);
+            }
+        }
+        CompletableFuture<List<T>> all = CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+            .thenApply(ignored -> {
+                List<T> values = new ArrayList<>(count);
+                results.forEach(future -> values.add(future.join()));
+                return values;
+            });
+        all.whenComplete((values, failure) -> {
+            if (failure != null) {
+                captures.forEach(future -> future.cancel(false));
+                results.forEach(future -> future.cancel(false));
+            }
+        });
+        return all;
+    }
+
+    private Mat decode(byte[] bytes) {
+        try {
+            return visionQuery.decodeScreenshot(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutors) {
+            ioExecutor.shutdown();
+            computeExecutor.shutdown();
+        }
+    }
+
+    /** A fetched screen: encoded bytes from a device, or a Mat straight from a frame source. */
+    private static final class Capture {
+        private final byte[] bytes;
+        private final Mat screen;
+
+        Capture(byte[] bytes, Mat screen) {
+            this.bytes = bytes;
+            this.screen = screen;
+        }
+    }
+
+    /** Virtual-thread-per-task executor on Java 21+, otherwise a cached pool of daemon threads. */
+    static ExecutorService newIoExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            log.debug("Virtual threads not available, using a cached thread pool for I/O");
+            return Executors.newCachedThreadPool(daemonThreads("vision-io"));
+        }
+    }
+
+    /**
+     * Fixed pool with a bounded queue. When the queue is full the submitting thread waits for room; a thread
+     * of the pool itself cannot wait for its own pool, so its task is rejected instead, which fails the
+     * future of a {@code *Async} stage with {@link RejectedExecutionException}. Once the pool is shut down
+     * tasks are rejected rather than silently dropped, which would leave their futures incomplete.
+     */
+    public static ExecutorService newComputeExecutor(int threads) {
+        Set<Thread> workers = ConcurrentHashMap.newKeySet();
+        ThreadFactory names = daemonThreads("vision-compute");
+        ThreadFactory factory = runnable -> {
+            Thread thread = names.newThread(runnable);
+            workers.add(thread);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(COMPUTE_QUEUE_CAPACITY), factory,
+            (task, executor) -> {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("Vision compute pool is shut down");
+                }
+                if (workers.contains(Thread.currentThread())) {
+                    throw new RejectedExecutionException("Vision compute queue is full");
+                }
+                try {
+                    while (!executor.getQueue().offer(task, 100, TimeUnit.MILLISECONDS)) {
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException("Vision compute pool is shut down");
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("Interrupted while waiting for the vision compute pool", e);
+                }
+                // After a racing shutdown() the workers may already be gone and never take the task
+                if (executor.isShutdown() && executor.remove(task)) {
+                    throw new RejectedExecutionException("Vision compute pool is shut down");
+                }
+            });
+    }
+
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
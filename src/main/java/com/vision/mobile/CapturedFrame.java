@@ -0,0 +1,36 @@
+package com.vision.mobile;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+
+/**
+ * A decoded BGR frame with its position in the source and its capture timestamp.
+ */
+public class CapturedFrame {
+    private final Mat image;
+    private final long index;
+    private final long timestampMicros;
+
+    public CapturedFrame(Mat image, long index, long timestampMicros) {
+        this.image = image;
+        this.index = index;
+        this.timestampMicros = timestampMicros;
+    }
+
+    public Mat getImage() {
+        return image;
+    }
+
+    /** Zero-based position of the frame in its source. */
+    public long getIndex() {
+        return index;
+    }
+
+    /** Capture time in microseconds, relative to the start of a recording or since the epoch for live sources. */
+    public long getTimestampMicros() {
+        return timestampMicros;
+    }
+
+    public void release() {
+        image.release();
+    }
+}
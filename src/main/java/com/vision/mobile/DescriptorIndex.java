@@ -0,0 +1,141 @@
+package com.vision.mobile;
+
+import org.bytedeco.opencv.opencv_core.*;
+import org.bytedeco.opencv.opencv_features2d.ORB;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+/**
+ * ORB keypoints and descriptors of logo/icon templates, computed once and reused for every screen.
+ * The index can be saved to a file and loaded again so templates are not re-analysed on every run.
+ */
+public class DescriptorIndex {
+    private static final int FILE_MAGIC = 0x56444958; // "VDIX"
+    static final int MAX_FEATURES = 500;
+
+    private final Map<String, TemplateFeatures> templates = new ConcurrentHashMap<>();
+
+    /** Computes and stores the features of {@code template} (BGR or grayscale) under {@code name}. */
+    public void add(String name, Mat template) {
+        Mat gray = toGray(template);
+        KeyPointVector keypoints = new KeyPointVector();
+        Mat descriptors = new Mat();
+        ORB orb = ORB.create();
+        orb.setMaxFeatures(MAX_FEATURES);
+        orb.detectAndCompute(gray, new Mat(), keypoints, descriptors);
+        orb.close();
+
+        int count = (int) keypoints.size();
+        if (count < 4) {
+            throw new IllegalArgumentException("Template " + name + " has only " + count
+                + " keypoints; it needs more texture or a larger size for feature matching");
+        }
+        float[] points = new float[count * 2];
+        for (int i = 0; i < count; i++) {
+            Point2f pt = keypoints.get(i).pt();
+            points[2 * i] = pt.x();
+            points[2 * i + 1] = pt.y();
+        }
+        templates.put(name, new TemplateFeatures(template.cols(), template.rows(), points, descriptors));
+        if (gray != template) {
+            gray.release();
+        }
+    }
+
+    public TemplateFeatures get(String name) {
+        TemplateFeatures features = templates.get(name);
+        if (features == null) {
+            throw new IllegalArgumentException("No template named " + name + " in descriptor index");
+        }
+        return features;
+    }
+
+    public Set<String> names() {
+        return Collections.unmodifiableSet(templates.keySet());
+    }
+
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(templates.size());
+            for (Map.Entry<String, TemplateFeatures> entry : templates.entrySet()) {
+                TemplateFeatures features = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(features.width);
+                out.writeInt(features.height);
+                out.writeInt(features.points.length);
+                for (float value : features.points) {
+                    out.writeFloat(value);
+                }
+                Mat descriptors = features.descriptors;
+                byte[] data = new byte[(int) (descriptors.total() * descriptors.elemSize())];
+                descriptors.data().get(data);
+                out.writeInt(descriptors.rows());
+                out.writeInt(descriptors.cols());
+                out.writeInt(descriptors.type());
+                out.write(data);
+            }
+        }
+    }
+
+    public static DescriptorIndex load(Path file) throws IOException {
+        DescriptorIndex index = new DescriptorIndex();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a descriptor index file: " + file);
+            }
+            int count = in.readInt();
+            for (int t = 0; t < count; t++) {
+                String name = in.readUTF();
+                int width = in.readInt();
+                int height = in.readInt();
+                float[] points = new float[in.readInt()];
+                for (int i = 0; i < points.length; i++) {
+                    points[i] = in.readFloat();
+                }
+                Mat descriptors = new Mat(in.readInt(), in.readInt(), in.readInt());
+                byte[] data = new byte[(int) (descriptors.total() * descriptors.elemSize())];
+                in.readFully(data);
+                descriptors.data().put(data);
+                index.templates.put(name, new TemplateFeatures(width, height, points, descriptors));
+            }
+        }
+        return index;
+    }
+
+    static Mat toGray(Mat image) {
+        if (image.channels() == 1) {
+            return image;
+        }
+        Mat gray = new Mat();
+        cvtColor(image, gray, image.channels() == 4 ? COLOR_BGRA2GRAY : COLOR_BGR2GRAY);
+        return gray;
+    }
+
+    /** Template size, keypoint coordinates (x0, y0, x1, y1, ...) and their ORB descriptors. */
+    public static class TemplateFeatures {
+        final int width;
+        final int height;
+        final float[] points;
+        final Mat descriptors;
+
+        TemplateFeatures(int width, int height, float[] points, Mat descriptors) {
+            this.width = width;
+            this.height = height;
+            this.points = points;
+            this.descriptors = descriptors;
+        }
+
+        public int getKeypointCount() {
+            return points.length / 2;
+        }
+    }
+}
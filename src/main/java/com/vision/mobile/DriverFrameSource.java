@@ -0,0 +1,40 @@
+package com.vision.mobile;
+
+import io.appium.java_client.AppiumDriver;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.openqa.selenium.OutputType;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMREAD_COLOR;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imdecode;
+
+/**
+ * Live frames from an Appium session, one screenshot per {@link #next()} call. Never exhausted. Safe to call
+ * from several threads; every frame gets its own index.
+ */
+public class DriverFrameSource implements FrameSource {
+    private final AppiumDriver driver;
+    private final AtomicLong index = new AtomicLong();
+
+    public DriverFrameSource(AppiumDriver driver) {
+        this.driver = driver;
+    }
+
+    @Override
+    public CapturedFrame next() throws IOException {
+        long timestampMicros = System.currentTimeMillis() * 1000;
+        byte[] screenshot = driver.getScreenshotAs(OutputType.BYTES);
+        Mat image = imdecode(new Mat(screenshot), IMREAD_COLOR);
+        if (image.empty()) {
+            throw new IOException("Screenshot bytes could not be decoded");
+        }
+        return new CapturedFrame(image, index.getAndIncrement(), timestampMicros);
+    }
+
+    @Override
+    public void close() {
+        // The driver's lifecycle belongs to the test
+    }
+}
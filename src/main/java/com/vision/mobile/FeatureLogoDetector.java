@@ -0,0 +1,143 @@
+package com.vision.mobile;
+
+import org.bytedeco.javacpp.indexer.FloatIndexer;
+import org.bytedeco.opencv.opencv_core.*;
+import org.bytedeco.opencv.opencv_features2d.BFMatcher;
+import org.bytedeco.opencv.opencv_features2d.ORB;
+
+import static org.bytedeco.opencv.global.opencv_calib3d.RANSAC;
+import static org.bytedeco.opencv.global.opencv_calib3d.findHomography;
+import static org.bytedeco.opencv.global.opencv_core.*;
+
+/**
+ * Scale- and rotation-tolerant logo detection with ORB keypoints.
+ * <p>
+ * Template descriptors come from a prebuilt {@link DescriptorIndex}; per call only the screen region is
+ * analysed. Matches are filtered with Lowe's ratio test on a brute-force Hamming matcher and the template
+ * outline is located with a RANSAC homography. This replaces the preprocess-and-{@code matchTemplate}
+ * approach of {@link MobileVisionQuery#findLogoInRegion(Mat, Rect, Mat)} when the logo may be scaled or rotated.
+ */
+public class FeatureLogoDetector {
+    private static final double RATIO_TEST = 0.75;
+    private static final double RANSAC_REPROJECTION_THRESHOLD = 5.0;
+
+    private final DescriptorIndex index;
+    private final int minInliers;
+
+    public FeatureLogoDetector(DescriptorIndex index) {
+        this(index, 8);
+    }
+
+    public FeatureLogoDetector(DescriptorIndex index, int minInliers) {
+        this.index = index;
+        this.minInliers = minInliers;
+    }
+
+    public LogoMatch locate(Mat image, Rect region, String templateName) {
+        DescriptorIndex.TemplateFeatures template = index.get(templateName);
+        // ORB and BFMatcher are not thread-safe; per-call instances cost little next to detectAndCompute
+        // and are freed here instead of living on in every thread that ever ran a detection
+        try (ORB orb = ORB.create(); BFMatcher matcher = new BFMatcher(NORM_HAMMING, false)) {
+            orb.setMaxFeatures(DescriptorIndex.MAX_FEATURES * 2);
+            return locate(image, region, template, orb, matcher);
+        }
+    }
+
+    private LogoMatch locate(Mat image, Rect region, DescriptorIndex.TemplateFeatures template, ORB orb,
+                             BFMatcher matcher) {
+        Mat roi = new Mat(image, region);
+        Mat gray = DescriptorIndex.toGray(roi);
+        KeyPointVector keypoints = new KeyPointVector();
+        Mat descriptors = new Mat();
+        orb.detectAndCompute(gray, new Mat(), keypoints, descriptors);
+        if (gray != roi) {
+            gray.release();
+        }
+        roi.release();
+        if (descriptors.empty()) {
+            return LogoMatch.notFound(0, 0);
+        }
+
+        DMatchVectorVector knn = new DMatchVectorVector();
+        matcher.knnMatch(template.descriptors, descriptors, knn, 2);
+        descriptors.release();
+
+        int good = 0;
+        int[] queryIdx = new int[(int) knn.size()];
+        int[] trainIdx = new int[(int) knn.size()];
+        for (long i = 0; i < knn.size(); i++) {
+            DMatchVector pair = knn.get(i);
+            if (pair.size() < 2) {
+                continue;
+            }
+            DMatch best = pair.get(0);
+            if (best.distance() < RATIO_TEST * pair.get(1).distance()) {
+                queryIdx[good] = best.queryIdx();
+                trainIdx[good] = best.trainIdx();
+                good++;
+            }
+        }
+        if (good < Math.max(4, minInliers)) {
+            return LogoMatch.notFound(0, good);
+        }
+
+        Mat src = new Mat(good, 1, CV_32FC2);
+        Mat dst = new Mat(good, 1, CV_32FC2);
+        FloatIndexer srcIdx = src.createIndexer();
+        FloatIndexer dstIdx = dst.createIndexer();
+        for (int i = 0; i < good; i++) {
+            srcIdx.put(i, 0, 0, template.points[2 * queryIdx[i]]);
+            srcIdx.put(i, 0, 1, template.points[2 * queryIdx[i] + 1]);
+            Point2f pt = keypoints.get(trainIdx[i]).pt();
+            dstIdx.put(i, 0, 0, pt.x());
+            dstIdx.put(i, 0, 1, pt.y());
+        }
+        srcIdx.release();
+        dstIdx.release();
+
+        Mat inlierMask = new Mat();
+        Mat homography = findHomography(src, dst, RANSAC, RANSAC_REPROJECTION_THRESHOLD, inlierMask, 2000, 0.995);
+        src.release();
+        dst.release();
+        if (homography.empty()) {
+            inlierMask.release();
+            return LogoMatch.notFound(0, good);
+        }
+        int inliers = countNonZero(inlierMask);
+        inlierMask.release();
+        if (inliers < minInliers) {
+            homography.release();
+            return LogoMatch.notFound(inliers, good);
+        }
+
+        Point2f[] quad = projectCorners(template, homography, region);
+        homography.release();
+        return new LogoMatch(true, quad, inliers, good);
+    }
+
+    private Point2f[] projectCorners(DescriptorIndex.TemplateFeatures template, Mat homography, Rect region) {
+        float w = template.width;
+        float h = template.height;
+        float[] corners = {0, 0, w, 0, w, h, 0, h};
+
+        Mat src = new Mat(4, 1, CV_32FC2);
+        FloatIndexer srcIdx = src.createIndexer();
+        for (int i = 0; i < 4; i++) {
+            srcIdx.put(i, 0, 0, corners[2 * i]);
+            srcIdx.put(i, 0, 1, corners[2 * i + 1]);
+        }
+        srcIdx.release();
+
+        Mat dst = new Mat();
+        perspectiveTransform(src, dst, homography);
+        FloatIndexer dstIdx = dst.createIndexer();
+        Point2f[] quad = new Point2f[4];
+        for (int i = 0; i < 4; i++) {
+            quad[i] = new Point2f(dstIdx.get(i, 0, 0) + region.x(), dstIdx.get(i, 0, 1) + region.y());
+        }
+        dstIdx.release();
+        src.release();
+        dst.release();
+        return quad;
+    }
+}
@@ -0,0 +1,355 @@
+package com.vision.mobile;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs a chain of vision queries over every frame of a {@link FrameSource}.
+ * <p>
+ * The source is read on the calling thread into a bounded queue that is drained by a fixed set of
+ * worker threads. When the workers fall behind the {@link DropPolicy} decides what happens: block the
+ * reader (every frame is analysed, the right choice for recordings), or drop the oldest or newest
+ * queued frame (keeps latency bounded on live streams).
+ * <pre>
+ * FramePipeline pipeline = new FramePipeline(new VideoFrameSource(new File("game.mp4")), 8, 2, DropPolicy.BLOCK)
+ *     .addStage("score", frame -&gt; visionQuery.performOCR(frame.getImage(), scoreRegion))
+ *     .onResult(result -&gt; System.out.println(result.getTimestampMicros() + " " + result.get("score")));
+ * FramePipeline.Stats stats = pipeline.run();
+ * </pre>
+ */
+@Slf4j
+public class FramePipeline {
+
+    public enum DropPolicy {
+        /** Reader waits for queue space; no frame is skipped. */
+        BLOCK,
+        /** The oldest queued frame is discarded to make room for the new one. */
+        DROP_OLDEST,
+        /** The incoming frame is discarded while the queue is full. */
+        DROP_NEWEST
+    }
+
+    /** One step of the chain; the returned value is stored in the frame result under the stage name. */
+    @FunctionalInterface
+    public interface FrameQuery<T> {
+        T apply(CapturedFrame frame) throws Exception;
+    }
+
+    private static final CapturedFrame END_OF_STREAM = new CapturedFrame(null, -1, -1);
+    private static final long HANDOFF_POLL_MILLIS = 50;
+
+    private final FrameSource source;
+    private final BlockingQueue<CapturedFrame> queue;
+    private final int workers;
+    private final DropPolicy dropPolicy;
+    private final Map<String, FrameQuery<?>> stages = new LinkedHashMap<>();
+    private Consumer<FrameResult> resultConsumer = result -> { };
+
+    private final AtomicLong framesRead = new AtomicLong();
+    private final AtomicLong framesProcessed = new AtomicLong();
+    private final AtomicLong framesDropped = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private volatile boolean stopped;
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    public FramePipeline(FrameSource source, int queueCapacity, int workers, DropPolicy dropPolicy) {
+        if (queueCapacity <= 0 || workers <= 0) {
+            throw new IllegalArgumentException("Queue capacity and worker count must be positive");
+        }
+        this.source = source;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.workers = workers;
+        this.dropPolicy = dropPolicy;
+    }
+
+    public FramePipeline addStage(String name, FrameQuery<?> query) {
+        stages.put(name, query);
+        return this;
+    }
+
+    /**
+     * Receives each frame result on the worker thread that produced it. Results of different workers may
+     * arrive out of order; use the frame index or timestamp to sort them. The frame Mat is released as
+     * soon as the consumer returns.
+     */
+    public FramePipeline onResult(Consumer<FrameResult> consumer) {
+        this.resultConsumer = consumer;
+        return this;
+    }
+
+    /** Asks {@link #run()} to stop reading; frames already queued are still processed. */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Reads the source to the end (or until {@link #stop()}), waits for the workers and closes the source.
+     * A pipeline runs once: its source is closed afterwards, so a second call is rejected.
+     */
+    public Stats run() throws IOException, InterruptedException {
+        if (!started.compareAndSet(false, true)) {
+            throw new IllegalStateException("A FramePipeline can only run once; its source is closed after the run");
+        }
+        CountDownLatch workersDone = new CountDownLatch(workers);
+        AtomicInteger workerCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "frame-pipeline-worker-" + workerCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workers; i++) {
+            pool.execute(() -> {
+                try {
+                    workerLoop();
+                } finally {
+                    workersDone.countDown();
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            CapturedFrame frame;
+            while (!stopped && (frame = source.next()) != null) {
+                framesRead.incrementAndGet();
+                if (!enqueue(frame, workersDone)) {
+                    drop(frame);
+                    break;
+                }
+            }
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            try {
+                finishWorkers(workersDone);
+            } catch (InterruptedException e) {
+                pool.shutdownNow();
+                if (failure != null) {
+                    failure.addSuppressed(e);
+                    Thread.currentThread().interrupt();
+                } else {
+                    failure = e;
+                    throw e;
+                }
+            } finally {
+                pool.shutdown();
+                drainQueue();
+                closeSource(failure);
+            }
+        }
+
+        Stats stats = new Stats(framesRead.get(), framesProcessed.get(), framesDropped.get(),
+            totalLatencyNanos.get(), System.nanoTime() - start);
+        log.info("Frame pipeline finished: {}", stats);
+        return stats;
+    }
+
+    /**
+     * Sends one end-of-stream marker per worker. Offers time out and are retried only while some worker is
+     * still alive, so a worker that died (for example on an {@link Error} from a stage) cannot leave the
+     * reader blocked on a full queue forever.
+     */
+    private void finishWorkers(CountDownLatch workersDone) throws InterruptedException {
+        int sent = 0;
+        while (sent < workers && workersDone.getCount() > 0) {
+            if (queue.offer(END_OF_STREAM, HANDOFF_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                sent++;
+            }
+        }
+        workersDone.await();
+    }
+
+    /** Closes the source; when the run is already failing, a close error is attached to that failure instead. */
+    private void closeSource(Throwable failure) throws IOException {
+        try {
+            source.close();
+        } catch (IOException | RuntimeException e) {
+            if (failure == null) {
+                throw e;
+            }
+            failure.addSuppressed(e);
+        }
+    }
+
+    /** Releases frames left behind by workers that died; they count as dropped. */
+    private void drainQueue() {
+        CapturedFrame frame;
+        while ((frame = queue.poll()) != null) {
+            if (frame != END_OF_STREAM) {
+                drop(frame);
+            }
+        }
+    }
+
+    /** Queues {@code frame} per the drop policy; returns false when no worker is left to take it. */
+    private boolean enqueue(CapturedFrame frame, CountDownLatch workersDone) throws InterruptedException {
+        switch (dropPolicy) {
+            case BLOCK:
+                while (!queue.offer(frame, HANDOFF_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (workersDone.getCount() == 0) {
+                        log.warn("All frame pipeline workers have stopped, ending the run");
+                        return false;
+                    }
+                }
+                break;
+            case DROP_NEWEST:
+                if (!queue.offer(frame)) {
+                    drop(frame);
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(frame)) {
+                    CapturedFrame oldest = queue.poll();
+                    if (oldest != null) {
+                        drop(oldest);
+                    }
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown drop policy " + dropPolicy);
+        }
+        return true;
+    }
+
+    private void drop(CapturedFrame frame) {
+        framesDropped.incrementAndGet();
+        frame.release();
+    }
+
+    private void workerLoop() {
+        try {
+            while (true) {
+                CapturedFrame frame = queue.take();
+                if (frame == END_OF_STREAM) {
+                    return;
+                }
+                try {
+                    process(frame);
+                } finally {
+                    frame.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void process(CapturedFrame frame) {
+        long start = System.nanoTime();
+        Map<String, Object> values = new LinkedHashMap<>();
+        Map<String, Exception> errors = new LinkedHashMap<>();
+        for (Map.Entry<String, FrameQuery<?>> stage : stages.entrySet()) {
+            try {
+                values.put(stage.getKey(), stage.getValue().apply(frame));
+            } catch (Exception e) {
+                log.warn("Stage {} failed on frame {}: {}", stage.getKey(), frame.getIndex(), e.getMessage());
+                errors.put(stage.getKey(), e);
+            }
+        }
+        long latency = System.nanoTime() - start;
+        totalLatencyNanos.addAndGet(latency);
+        framesProcessed.incrementAndGet();
+
+        try {
+            resultConsumer.accept(new FrameResult(frame, values, errors, latency));
+        } catch (RuntimeException e) {
+            log.warn("Result consumer failed on frame {}", frame.getIndex(), e);
+        }
+    }
+
+    /** Stage outputs for one frame. */
+    public static class FrameResult {
+        private final CapturedFrame frame;
+        private final Map<String, Object> values;
+        private final Map<String, Exception> errors;
+        private final long latencyNanos;
+
+        FrameResult(CapturedFrame frame, Map<String, Object> values, Map<String, Exception> errors, long latencyNanos) {
+            this.frame = frame;
+            this.values = Collections.unmodifiableMap(values);
+            this.errors = Collections.unmodifiableMap(errors);
+            this.latencyNanos = latencyNanos;
+        }
+
+        public CapturedFrame getFrame() {
+            return frame;
+        }
+
+        public long getIndex() {
+            return frame.getIndex();
+        }
+
+        public long getTimestampMicros() {
+            return frame.getTimestampMicros();
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T get(String stage) {
+            return (T) values.get(stage);
+        }
+
+        public Map<String, Object> getValues() {
+            return values;
+        }
+
+        public Map<String, Exception> getErrors() {
+            return errors;
+        }
+
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+    }
+
+    /** Counters of a finished run. */
+    public static class Stats {
+        private final long framesRead;
+        private final long framesProcessed;
+        private final long framesDropped;
+        private final long totalLatencyNanos;
+        private final long elapsedNanos;
+
+        Stats(long framesRead, long framesProcessed, long framesDropped, long totalLatencyNanos, long elapsedNanos) {
+            this.framesRead = framesRead;
+            this.framesProcessed = framesProcessed;
+            this.framesDropped = framesDropped;
+            this.totalLatencyNanos = totalLatencyNanos;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getFramesRead() {
+            return framesRead;
+        }
+
+        public long getFramesProcessed() {
+            return framesProcessed;
+        }
+
+        public long getFramesDropped() {
+            return framesDropped;
+        }
+
+        public double getAverageLatencyMillis() {
+            return framesProcessed == 0 ? 0 : totalLatencyNanos / 1e6 / framesProcessed;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("read=%d processed=%d dropped=%d avgLatency=%.1fms elapsed=%dms",
+                framesRead, framesProcessed, framesDropped, getAverageLatencyMillis(), getElapsedMillis());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.vision.mobile;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * A sequence of frames: a screen recording, a replayed session or a live device.
+ */
+public interface FrameSource extends AutoCloseable {
+
+    /** Returns the next frame, or null once the source is exhausted. The caller owns the returned Mat. */
+    CapturedFrame next() throws IOException;
+
+    @Override
+    void close() throws IOException;
+
+    /** Wraps in-memory frames, stamping them {@code frameIntervalMicros} apart. */
+    static FrameSource fromIterator(Iterator<Mat> frames, long frameIntervalMicros) {
+        return new FrameSource() {
+            private long index;
+
+            @Override
+            public CapturedFrame next() {
+                if (!frames.hasNext()) {
+                    return null;
+                }
+                long i = index++;
+                return new CapturedFrame(frames.next(), i, i * frameIntervalMicros);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.vision.mobile;
+
+/**
+ * Result of {@link GlyphRecognizer#recognize}: the text read and the lowest per-glyph correlation score,
+ * which callers compare against a minimum before trusting the result.
+ */
+public class GlyphReading {
+    private final String text;
+    private final double confidence;
+    private final int glyphCount;
+    private final long elapsedNanos;
+
+    GlyphReading(String text, double confidence, int glyphCount, long elapsedNanos) {
+        this.text = text;
+        this.confidence = confidence;
+        this.glyphCount = glyphCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /** Lowest normalised correlation over all glyphs, between -1 and 1; 0 when nothing was found. */
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public int getGlyphCount() {
+        return glyphCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public boolean isConfident(double minConfidence) {
+        return glyphCount > 0 && confidence >= minConfidence;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GlyphReading{text='%s', confidence=%.3f, glyphs=%d}", text, confidence, glyphCount);
+    }
+}
@@ -0,0 +1,275 @@
+package com.vision.mobile;
+
+import com.vision.core.Regions;
+import org.bytedeco.javacpp.indexer.IntIndexer;
+import org.bytedeco.javacpp.indexer.UByteIndexer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+import org.bytedeco.opencv.opencv_core.Size;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+/**
+ * Lightweight reader for text in the app's own fixed font (scores, timers, amounts). Glyph templates are
+ * learned from labelled sample crops; reading binarises the region, splits it into glyphs with connected
+ * components and classifies each glyph by normalised correlation against the learned templates.
+ * <p>
+ * Glyphs are normalised relative to the height of their text line, so samples should be crops of the same
+ * kind of field that will be read (e.g. digits only). A typical numeric field reads in well under a
+ * millisecond; use {@link GlyphReading#getConfidence()} to decide when to fall back to Tesseract.
+ */
+public class GlyphRecognizer {
+    private static final int FILE_MAGIC = 0x56474c59; // "VGLY"
+    static final int GLYPH_WIDTH = 16;
+    static final int GLYPH_HEIGHT = 24;
+    // Components smaller than this are treated as noise
+    private static final int MIN_COMPONENT_AREA = 3;
+    // Horizontal gap, relative to line height, that is read as a space
+    private static final double SPACE_RATIO = 0.5;
+
+    private final List<Glyph> glyphs = new CopyOnWriteArrayList<>();
+
+    /**
+     * Learns one template per character of {@code label} from {@code sample}. Whitespace in the label is
+     * ignored; the remaining characters must match the glyphs found in the sample from left to right.
+     */
+    public void learn(Mat sample, String label) {
+        String characters = label.replaceAll("\\s", "");
+        List<float[]> vectors = new ArrayList<>();
+        segment(sample, new Rect(0, 0, sample.cols(), sample.rows()), null, vectors);
+        if (vectors.size() != characters.length()) {
+            throw new IllegalArgumentException("Found " + vectors.size() + " glyphs in sample but label '"
+                + label + "' has " + characters.length() + " characters");
+        }
+        for (int i = 0; i < vectors.size(); i++) {
+            glyphs.add(new Glyph(characters.charAt(i), vectors.get(i)));
+        }
+    }
+
+    public int size() {
+        return glyphs.size();
+    }
+
+    public GlyphReading recognize(Mat image) {
+        return recognize(image, new Rect(0, 0, image.cols(), image.rows()));
+    }
+
+    public GlyphReading recognize(Mat image, Rect region) {
+        long start = System.nanoTime();
+        Rect area = Regions.clip(region, image.cols(), image.rows());
+        if (area == null || glyphs.isEmpty()) {
+            return new GlyphReading("", 0, 0, System.nanoTime() - start);
+        }
+        int[] lineHeight = new int[1];
+        List<float[]> vectors = new ArrayList<>();
+        List<int[]> boxes = segment(image, area, lineHeight, vectors);
+
+        StringBuilder text = new StringBuilder();
+        double confidence = vectors.isEmpty() ? 0 : 1;
+        for (int i = 0; i < vectors.size(); i++) {
+            if (i > 0) {
+                int gap = boxes.get(i)[0] - (boxes.get(i - 1)[0] + boxes.get(i - 1)[2]);
+                if (gap > SPACE_RATIO * lineHeight[0]) {
+                    text.append(' ');
+                }
+            }
+            Glyph best = null;
+            double bestScore = -1;
+            for (Glyph glyph : glyphs) {
+                double score = dot(glyph.vector, vectors.get(i));
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = glyph;
+                }
+            }
+            text.append(best.character);
+            confidence = Math.min(confidence, bestScore);
+        }
+        return new GlyphReading(text.toString(), confidence, vectors.size(), System.nanoTime() - start);
+    }
+
+    /**
+     * Splits the region into glyph boxes ({@code x, y, width, height} relative to the region), ordered left to
+     * right, and appends one normalised vector per box to {@code vectors}.
+     */
+    private static List<int[]> segment(Mat image, Rect area, int[] lineHeightOut, List<float[]> vectors) {
+        Mat roi = new Mat(image, area);
+        Mat gray = DescriptorIndex.toGray(roi);
+        Mat binary = new Mat();
+        threshold(gray, binary, 0, 255, THRESH_BINARY | THRESH_OTSU);
+        // Text is assumed to cover less of the field than its background; make it the foreground
+        if (countNonZero(binary) > binary.total() / 2) {
+            bitwise_not(binary, binary);
+        }
+
+        Mat labels = new Mat();
+        Mat stats = new Mat();
+        Mat centroids = new Mat();
+        int count = connectedComponentsWithStats(binary, labels, stats, centroids, 8, CV_32S);
+        List<int[]> boxes = new ArrayList<>();
+        IntIndexer statsIndexer = stats.createIndexer();
+        for (int label = 1; label < count; label++) {
+            if (statsIndexer.get(label, CC_STAT_AREA) >= MIN_COMPONENT_AREA) {
+                boxes.add(new int[] {
+                    statsIndexer.get(label, CC_STAT_LEFT), statsIndexer.get(label, CC_STAT_TOP),
+                    statsIndexer.get(label, CC_STAT_WIDTH), statsIndexer.get(label, CC_STAT_HEIGHT)});
+            }
+        }
+        statsIndexer.release();
+        boxes = mergeStacked(boxes);
+
+        int top = Integer.MAX_VALUE;
+        int bottom = 0;
+        for (int[] box : boxes) {
+            top = Math.min(top, box[1]);
+            bottom = Math.max(bottom, box[1] + box[3]);
+        }
+        int lineHeight = Math.max(1, bottom - top);
+        if (lineHeightOut != null) {
+            lineHeightOut[0] = lineHeight;
+        }
+        for (int[] box : boxes) {
+            Mat cell = new Mat(binary, new Rect(box[0], top, box[2], lineHeight));
+            vectors.add(normalise(cell, lineHeight));
+            cell.release();
+        }
+
+        labels.release();
+        stats.release();
+        centroids.release();
+        binary.release();
+        if (gray != roi) {
+            gray.release();
+        }
+        roi.release();
+        return boxes;
+    }
+
+    /** Merges components that overlap horizontally (dots of i and j, colons, percent signs) into one glyph. */
+    private static List<int[]> mergeStacked(List<int[]> boxes) {
+        boxes.sort(Comparator.comparingInt(box -> box[0]));
+        List<int[]> merged = new ArrayList<>();
+        for (int[] box : boxes) {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null) {
+                int overlap = Math.min(last[0] + last[2], box[0] + box[2]) - Math.max(last[0], box[0]);
+                if (overlap * 2 >= Math.min(last[2], box[2])) {
+                    int x = Math.min(last[0], box[0]);
+                    int y = Math.min(last[1], box[1]);
+                    last[2] = Math.max(last[0] + last[2], box[0] + box[2]) - x;
+                    last[3] = Math.max(last[1] + last[3], box[1] + box[3]) - y;
+                    last[0] = x;
+                    last[1] = y;
+                    continue;
+                }
+            }
+            merged.add(box);
+        }
+        return merged;
+    }
+
+    /**
+     * Scales the glyph cell so the line height becomes {@link #GLYPH_HEIGHT}, centres it horizontally and
+     * returns the pixels as a zero-mean, unit-length vector.
+     */
+    private static float[] normalise(Mat cell, int lineHeight) {
+        double scale = (double) GLYPH_HEIGHT / lineHeight;
+        int width = (int) Math.max(1, Math.min(GLYPH_WIDTH, Math.round(cell.cols() * scale)));
+        Mat resized = new Mat();
+        resize(cell, resized, new Size(width, GLYPH_HEIGHT), 0, 0, INTER_AREA);
+        int offset = (GLYPH_WIDTH - width) / 2;
+
+        float[] vector = new float[GLYPH_WIDTH * GLYPH_HEIGHT];
+        UByteIndexer indexer = resized.createIndexer();
+        double sum = 0;
+        for (int y = 0; y < GLYPH_HEIGHT; y++) {
+            for (int x = 0; x < width; x++) {
+                float value = indexer.get(y, x) / 255f;
+                vector[y * GLYPH_WIDTH + offset + x] = value;
+                sum += value;
+            }
+        }
+        indexer.release();
+        resized.release();
+
+        float mean = (float) (sum / vector.length);
+        double norm = 0;
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] -= mean;
+            norm += vector[i] * vector[i];
+        }
+        if (norm > 0) {
+            float inverse = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= inverse;
+            }
+        }
+        return vector;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(GLYPH_WIDTH);
+            out.writeInt(GLYPH_HEIGHT);
+            out.writeInt(glyphs.size());
+            for (Glyph glyph : glyphs) {
+                out.writeChar(glyph.character);
+                for (float value : glyph.vector) {
+                    out.writeFloat(value);
+                }
+            }
+        }
+    }
+
+    public static GlyphRecognizer load(Path file) throws IOException {
+        GlyphRecognizer recognizer = new GlyphRecognizer();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a glyph template file: " + file);
+            }
+            if (in.readInt() != GLYPH_WIDTH || in.readInt() != GLYPH_HEIGHT) {
+                throw new IOException("Glyph template file " + file + " uses a different glyph size");
+            }
+            int count = in.readInt();
+            List<Glyph> loaded = new ArrayList<>(count);
+            for (int g = 0; g < count; g++) {
+                char character = in.readChar();
+                float[] vector = new float[GLYPH_WIDTH * GLYPH_HEIGHT];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = in.readFloat();
+                }
+                loaded.add(new Glyph(character, vector));
+            }
+            recognizer.glyphs.addAll(loaded);
+        }
+        return recognizer;
+    }
+
+    private static class Glyph {
+        final char character;
+        final float[] vector;
+
+        Glyph(char character, float[] vector) {
+            this.character = character;
+            this.vector = vector;
+        }
+    }
+}
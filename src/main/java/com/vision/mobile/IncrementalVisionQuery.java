@@ -0,0 +1,242 @@
+package com.vision.mobile;
+
+import com.vision.core.ComparisonOptions;
+import com.vision.core.ComparisonResult;
+import com.vision.core.ImageComparator;
+import com.vision.core.Regions;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Incremental analysis on top of {@link MobileVisionQuery} for polling loops.
+ * <p>
+ * Each watched region is bound to a check (OCR, logo match or any custom function). Every region keeps
+ * the pixels it was last evaluated on; on each frame the region (widened by its margin) is diffed against
+ * that reference and the check is re-run only when it changed, otherwise the previous result is kept.
+ * Diffing against the last evaluation rather than the previous frame means a region that changes a
+ * little on every frame is still re-evaluated once the changes add up.
+ * <pre>
+ * IncrementalVisionQuery incremental = new IncrementalVisionQuery(visionQuery);
+ * incremental.watchText("score", scoreRegion);
+ * String score = incremental.waitForText("score", s -&gt; s.contains("100"), 10000, 500);
+ * </pre>
+ */
+public class IncrementalVisionQuery {
+    private final MobileVisionQuery visionQuery;
+    private final ImageComparator comparator = new ImageComparator();
+    private final ComparisonOptions diffOptions;
+    private final Map<String, WatchedRegion<?>> watched = new LinkedHashMap<>();
+
+    public IncrementalVisionQuery(MobileVisionQuery visionQuery) {
+        this(visionQuery, new ComparisonOptions().setMinRegionArea(1));
+    }
+
+    public IncrementalVisionQuery(MobileVisionQuery visionQuery, ComparisonOptions diffOptions) {
+        this.visionQuery = visionQuery;
+        this.diffOptions = diffOptions;
+    }
+
+    /**
+     * Watches a region with a custom check. {@code margin} widens the region used for the dirty test,
+     * for checks that read pixels outside the region itself.
+     */
+    public <T> void watch(String name, Rect region, int margin, BiFunction<Mat, Rect, T> check) {
+        watch(name, region, () -> margin, check);
+    }
+
+    private synchronized <T> void watch(String name, Rect region, IntSupplier margin, BiFunction<Mat, Rect, T> check) {
+        watched.put(name, new WatchedRegion<>(region, margin, check));
+    }
+
+    /** Watches text read by {@link MobileVisionQuery#performOCR}; the margin follows the current profile's padding. */
+    public void watchText(String name, Rect region) {
+        watch(name, region, () -> visionQuery.getOcrProfile().getPadding(), visionQuery::performOCR);
+    }
+
+    public void watchLogo(String name, Rect region, Mat template) {
+        watch(name, region, 0, (frame, r) -> visionQuery.findLogoInRegion(frame, r, template));
+    }
+
+    public synchronized void unwatch(String name) {
+        WatchedRegion<?> region = watched.remove(name);
+        if (region != null) {
+            region.forget();
+        }
+    }
+
+    /** Forgets every reference so the next analysis re-runs every check. */
+    public synchronized void reset() {
+        watched.values().forEach(WatchedRegion::forget);
+    }
+
+    /** Captures a screenshot and analyses it. */
+    public FrameAnalysis poll() throws IOException {
+        Mat frame = visionQuery.getCurrentScreenAsMat();
+        try {
+            return analyze(frame);
+        } finally {
+            frame.release();
+        }
+    }
+
+    /**
+     * Analyses {@code frame}, re-running only the checks whose region changed since it was last evaluated.
+     * The reported dirty rectangles are the changes found inside watched regions.
+     */
+    public synchronized FrameAnalysis analyze(Mat frame) {
+        List<Rect> dirty = new ArrayList<>();
+        Set<String> refreshed = new LinkedHashSet<>();
+        for (Map.Entry<String, WatchedRegion<?>> entry : watched.entrySet()) {
+            WatchedRegion<?> region = entry.getValue();
+            Rect area = region.area(frame);
+            List<Rect> changes = changes(region, area, frame);
+            if (changes == null) {
+                region.evaluate(frame, area);
+                refreshed.add(entry.getKey());
+                if (area != null) {
+                    dirty.add(area);
+                }
+            } else if (!changes.isEmpty()) {
+                region.evaluate(frame, area);
+                refreshed.add(entry.getKey());
+                dirty.addAll(changes);
+            }
+        }
+        return new FrameAnalysis(Regions.merge(dirty, 0), refreshed);
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T result(String name) {
+        WatchedRegion<?> region = watched.get(name);
+        if (region == null) {
+            throw new IllegalArgumentException("No watched region named " + name);
+        }
+        return (T) region.result;
+    }
+
+    /**
+     * Polls until the text in {@code name} satisfies {@code condition}. Returns the last text read,
+     * which does not satisfy the condition if the timeout expired.
+     */
+    public String waitForText(String name, Predicate<String> condition, long timeoutMillis, long intervalMillis)
+            throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            poll();
+            String text = result(name);
+            if ((text != null && condition.test(text)) || System.currentTimeMillis() >= deadline) {
+                return text;
+            }
+            Thread.sleep(intervalMillis);
+        }
+    }
+
+    /**
+     * Changed rectangles of {@code area} in frame coordinates, or null when the region has no usable
+     * reference (never evaluated, resized frame or a different margin) and must be evaluated anyway.
+     */
+    private List<Rect> changes(WatchedRegion<?> region, Rect area, Mat frame) {
+        if (!region.evaluated) {
+            return null;
+        }
+        if (area == null) {
+            // Entirely off-screen: nothing to look at, keep the result
+            return Collections.emptyList();
+        }
+        Mat reference = region.reference;
+        if (reference == null || reference.type() != frame.type() || !sameRect(area, region.referenceArea)) {
+            return null;
+        }
+        Mat current = new Mat(frame, area);
+        try {
+            ComparisonResult diff = comparator.compare(reference, current, diffOptions);
+            if (diff.isBudgetExceeded()) {
+                // Regions are incomplete once the budget stops the diff, treat the whole area as changed
+                return Collections.singletonList(area);
+            }
+            List<Rect> changes = new ArrayList<>(diff.getDiffRegions().size());
+            for (Rect r : diff.getDiffRegions()) {
+                changes.add(Regions.offset(r, area.x(), area.y()));
+            }
+            return changes;
+        } finally {
+            current.release();
+        }
+    }
+
+    private static boolean sameRect(Rect a, Rect b) {
+        return b != null && a.x() == b.x() && a.y() == b.y() && a.width() == b.width() && a.height() == b.height();
+    }
+
+    private static class WatchedRegion<T> {
+        private final Rect region;
+        private final IntSupplier margin;
+        private final BiFunction<Mat, Rect, T> check;
+        private T result;
+        private boolean evaluated;
+        private Mat reference;
+        private Rect referenceArea;
+
+        WatchedRegion(Rect region, IntSupplier margin, BiFunction<Mat, Rect, T> check) {
+            this.region = region;
+            this.margin = margin;
+            this.check = check;
+        }
+
+        /** The region widened by its current margin and clipped to the frame; null when off-screen. */
+        Rect area(Mat frame) {
+            int m = margin.getAsInt();
+            return Regions.clip(new Rect(region.x() - m, region.y() - m, region.width() + 2 * m,
+                region.height() + 2 * m), frame.cols(), frame.rows());
+        }
+
+        /** Runs the check and keeps a copy of {@code area} as the reference for later frames. */
+        void evaluate(Mat frame, Rect area) {
+            result = check.apply(frame, region);
+            evaluated = true;
+            if (reference != null) {
+                reference.release();
+            }
+            reference = area == null ? null : new Mat(frame, area).clone();
+            referenceArea = area;
+        }
+
+        void forget() {
+            if (reference != null) {
+                reference.release();
+                reference = null;
+            }
+            referenceArea = null;
+            evaluated = false;
+        }
+    }
+
+    /** Dirty rectangles of one frame and the names of the checks that were re-run for it. */
+    public static class FrameAnalysis {
+        private final List<Rect> dirtyRegions;
+        private final Set<String> refreshed;
+
+        FrameAnalysis(List<Rect> dirtyRegions, Set<String> refreshed) {
+            this.dirtyRegions = Collections.unmodifiableList(dirtyRegions);
+            this.refreshed = Collections.unmodifiableSet(refreshed);
+        }
+
+        public List<Rect> getDirtyRegions() {
+            return dirtyRegions;
+        }
+
+        public Set<String> getRefreshed() {
+            return refreshed;
+        }
+
+        public boolean isRefreshed(String name) {
+            return refreshed.contains(name);
+        }
+    }
+}
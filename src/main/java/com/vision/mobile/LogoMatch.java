@@ -0,0 +1,54 @@
+package com.vision.mobile;
+
+import org.bytedeco.opencv.opencv_core.Point2f;
+
+/**
+ * Result of a feature-based logo search: where the template corners landed on screen and how well
+ * the matches agree with the estimated homography.
+ */
+public class LogoMatch {
+    private static final LogoMatch NOT_FOUND = new LogoMatch(false, null, 0, 0);
+
+    private final boolean found;
+    private final Point2f[] quad;
+    private final int inliers;
+    private final int matches;
+
+    LogoMatch(boolean found, Point2f[] quad, int inliers, int matches) {
+        this.found = found;
+        this.quad = quad;
+        this.inliers = inliers;
+        this.matches = matches;
+    }
+
+    static LogoMatch notFound(int inliers, int matches) {
+        return inliers == 0 && matches == 0 ? NOT_FOUND : new LogoMatch(false, null, inliers, matches);
+    }
+
+    public boolean isFound() {
+        return found;
+    }
+
+    /** Template corners (top-left, top-right, bottom-right, bottom-left) in screen coordinates, or null. */
+    public Point2f[] getQuad() {
+        return quad;
+    }
+
+    public int getInliers() {
+        return inliers;
+    }
+
+    public int getMatches() {
+        return matches;
+    }
+
+    /** Share of ratio-test matches that are RANSAC inliers, 0..1. */
+    public double getInlierScore() {
+        return matches == 0 ? 0 : (double) inliers / matches;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LogoMatch{found=%s, inliers=%d/%d}", found, inliers, matches);
+    }
+}
@@ -1,13 +1,17 @@
 package com.vision.mobile;
 
+import com.vision.core.NativeRuntime;
+import com.vision.core.OcrEngine;
+import com.vision.core.OcrEnginePool;
+import com.vision.core.VisionTimings;
+import com.vision.core.VisionTimings.Stage;
 import io.appium.java_client.AppiumDriver;
-import net.sourceforge.tess4j.Tesseract;
-import net.sourceforge.tess4j.TesseractException;
 import org.bytedeco.opencv.opencv_core.*;
 import org.bytedeco.opencv.opencv_imgproc.*;
 import org.bytedeco.opencv.global.opencv_core;
 import org.bytedeco.opencv.global.opencv_imgproc;
 import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.bytedeco.javacpp.BytePointer;
 import org.bytedeco.javacpp.DoublePointer;
 import org.openqa.selenium.OutputType;
 
@@ -17,9 +21,17 @@ import java.awt.image.DataBufferByte;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
-import java.util.Arrays;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -30,71 +42,223 @@ import static org.bytedeco.opencv.global.opencv_imgproc.*;
 import static org.bytedeco.opencv.global.opencv_imgcodecs.*;
 import org.bytedeco.opencv.opencv_core.Scalar;
 
-public class MobileVisionQuery {
-    private static final String TESS_DATA_PATH = "/opt/homebrew/share/tessdata";
+public class MobileVisionQuery implements VisionOperations {
+    // Pixels added around each OCR region to ensure full text capture
+    public static final int OCR_PADDING = 40;
+    public static final String OCR_LANGUAGE = "eng+hin";
+    // Tesseract settings applied under every profile; profile variables override them
+    private static final Map<String, String> BASE_VARIABLES = baseVariables();
     private final AppiumDriver driver;
-    private final Tesseract tesseract;
+    private final FrameSource frameSource;
+    private volatile OcrProfile ocrProfile;
+    private volatile SessionRecorder recorder;
+    // Frame index of each Mat handed out while recording, so calls name the frame they were made on
+    private final FrameIndices recordedFrames = new FrameIndices();
 
-    static {
+    public MobileVisionQuery(AppiumDriver driver) {
+        this(driver, null);
+    }
+
+    /** Reads screens from {@code frameSource} instead of a live device, e.g. a recording or a test stand-in. */
+    public MobileVisionQuery(FrameSource frameSource) {
+        this(null, frameSource);
+    }
+
+    private MobileVisionQuery(AppiumDriver driver, FrameSource frameSource) {
+        this.driver = driver;
+        this.frameSource = frameSource;
+        this.ocrProfile = defaultOcrProfile();
+    }
+
+    private static Map<String, String> baseVariables() {
+        Map<String, String> v = new LinkedHashMap<>();
+        v.put("user_defined_dpi", "300");
+        v.put("tessedit_do_invert", "0");
+        v.put("textord_heavy_nr", "1");
+        v.put("textord_min_linesize", "1.5");
+        v.put("edges_max_children_per_outline", "40");
+        v.put("edges_min_nonhole", "12");
+        v.put("debug_file", "/dev/null");
+        return Collections.unmodifiableMap(v);
+    }
+
+    /** Uses the profile file named by the {@code vision.ocr.profile} system property, if set. */
+    private static OcrProfile defaultOcrProfile() {
+        String path = System.getProperty("vision.ocr.profile");
+        if (path == null || path.isEmpty()) {
+            return new OcrProfile();
+        }
         try {
-            org.bytedeco.javacpp.Loader.load(org.bytedeco.opencv.global.opencv_core.class);
-            System.out.println("OpenCV native library loaded successfully");
-        } catch (Exception e) {
-            System.err.println("Error loading OpenCV: " + e.getMessage());
-            throw new RuntimeException("Failed to load OpenCV", e);
+            return OcrProfile.load(Paths.get(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load OCR profile " + path, e);
         }
     }
 
-    public MobileVisionQuery(AppiumDriver driver) {
-        this.driver = driver;
-        this.tesseract = new Tesseract();
-        tesseract.setDatapath(TESS_DATA_PATH);
-        
-        // Configure Tesseract languages
-        tesseract.setLanguage("eng+hin");
-        
-        // Set DPI for better text recognition
-        tesseract.setTessVariable("user_defined_dpi", "600");
-        
-        // Configure Tesseract for better text detection
-        tesseract.setPageSegMode(3);  // Changed to PSM_AUTO
-        tesseract.setOcrEngineMode(1);
-        
-        // Additional Tesseract optimization parameters
-        tesseract.setTessVariable("tessedit_do_invert", "0");
-        tesseract.setTessVariable("textord_heavy_nr", "1");
-        tesseract.setTessVariable("textord_min_linesize", "1.5");
-        tesseract.setTessVariable("edges_max_children_per_outline", "40");
-        tesseract.setTessVariable("edges_min_nonhole", "12");
-        tesseract.setTessVariable("tessedit_pageseg_mode", "3");
-        
-        // Configure Tesseract for better text detection
-        tesseract.setPageSegMode(6);
-        tesseract.setOcrEngineMode(1);
-        
-        // Set additional Tesseract parameters
-        tesseract.setTessVariable("tessedit_char_whitelist", "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789 हिंदी");
-        tesseract.setTessVariable("tessedit_create_hocr", "0");
-        tesseract.setTessVariable("tessedit_create_txt", "1");
-        tesseract.setTessVariable("tessedit_pageseg_mode", "6");
-        tesseract.setTessVariable("tessedit_do_invert", "0");
-        tesseract.setTessVariable("debug_file", "/dev/null");
-        tesseract.setTessVariable("user_defined_dpi", "300");
+    public OcrProfile getOcrProfile() {
+        return ocrProfile;
+    }
+
+    /** Replaces the preprocessing and Tesseract settings used by {@link #performOCR(Mat, Rect)}. */
+    public void setOcrProfile(OcrProfile ocrProfile) {
+        this.ocrProfile = ocrProfile.copy();
+    }
+
+    /**
+     * This query for callers that run several calls at once: each call uses the current profile with debug
+     * images turned off, since concurrent calls would overwrite each other's fixed {@code debug_*.png} files.
+     */
+    public VisionOperations withoutDebugImages() {
+        return new VisionOperations() {
+            @Override
+            public String performOCR(Mat image, Rect region) {
+                return MobileVisionQuery.this.performOCR(image, region, quietProfile());
+            }
+
+            @Override
+            public boolean findLogoInRegion(Mat image, Rect region, Mat template) {
+                return MobileVisionQuery.this.findLogoInRegion(image, region, template, quietProfile());
+            }
+        };
+    }
+
+    private OcrProfile quietProfile() {
+        OcrProfile profile = ocrProfile;
+        return profile.isDebugImages() ? profile.copy().setDebugImages(false) : profile;
+    }
+
+    /**
+     * Records every screen this query decodes and every OCR, glyph and logo call into {@code recorder}, for
+     * later replay with {@link ReplayFrameSource}. Operations are {@code ocr}, {@code glyph} (a confident
+     * {@link #readText} reading; a fallback is recorded as {@code ocr}), {@code logo} and {@code feature-logo}
+     * (result {@code <template>=<found>}). Pass null to stop recording.
+     */
+    public void setRecorder(SessionRecorder recorder) {
+        recordedFrames.clear();
+        this.recorder = recorder;
+    }
+
+    /** Creates and exercises the shared OCR engines so the first real query on any thread is not slowed down. */
+    public void warmUp() {
+        NativeRuntime.get().warmUp(OCR_LANGUAGE);
     }
 
     public void saveCurrentScreen(String fileName) throws IOException {
-        byte[] screenshotBytes = driver.getScreenshotAs(OutputType.BYTES);
+        if (frameSource != null) {
+            Mat frame = nextFrame().getImage();
+            try {
+                if (!imwrite(fileName, frame)) {
+                    throw new IOException("Failed to write " + fileName);
+                }
+            } finally {
+                frame.release();
+            }
+            return;
+        }
+        byte[] screenshotBytes = captureScreenshot();
         BufferedImage image = ImageIO.read(new ByteArrayInputStream(screenshotBytes));
         ImageIO.write(image, "png", new File(fileName));
     }
 
+    /** True when screens come from a {@link FrameSource} as decoded Mats, so there is nothing to decode. */
+    public boolean hasFrameSource() {
+        return frameSource != null;
+    }
+
+    /** The next screen as a BGR Mat; frames from a {@link FrameSource} are returned as they are. */
     public Mat getCurrentScreenAsMat() throws IOException {
-        byte[] screenshotBytes = driver.getScreenshotAs(OutputType.BYTES);
+        if (frameSource != null) {
+            long start = System.nanoTime();
+            Mat frame = nextFrame().getImage();
+            VisionTimings.record(Stage.CAPTURE, start);
+            return record(frame);
+        }
+        return decodeScreenshot(captureScreenshot());
+    }
+
+    /**
+     * Fetches the encoded (PNG) screenshot from the device without decoding it. With a {@link FrameSource}
+     * the frame has to be PNG-encoded for this, so use {@link #getCurrentScreenAsMat()} when a Mat is wanted.
+     */
+    public byte[] captureScreenshot() {
+        long start = System.nanoTime();
+        try {
+            return fetchScreenshot();
+        } finally {
+            VisionTimings.record(Stage.CAPTURE, start);
+        }
+    }
+
+    private byte[] fetchScreenshot() {
+        if (frameSource != null) {
+            try {
+                Mat frame = nextFrame().getImage();
+                BytePointer buffer = new BytePointer();
+                imencode(".png", frame, buffer);
+                frame.release();
+                byte[] bytes = new byte[(int) buffer.limit()];
+                buffer.get(bytes);
+                buffer.deallocate();
+                return bytes;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return driver.getScreenshotAs(OutputType.BYTES);
+    }
+
+    private CapturedFrame nextFrame() throws IOException {
+        CapturedFrame frame = frameSource.next();
+        if (frame == null) {
+            throw new IOException("Frame source is exhausted");
+        }
+        return frame;
+    }
+
+    /** Decodes screenshot bytes from {@link #captureScreenshot()} into a BGR Mat. */
+    public Mat decodeScreenshot(byte[] screenshotBytes) throws IOException {
+        long start = System.nanoTime();
         BufferedImage screenshot = ImageIO.read(new ByteArrayInputStream(screenshotBytes));
-        return bufferedImageToMat(screenshot);
+        if (screenshot == null) {
+            throw new IOException("Screenshot bytes could not be decoded");
+        }
+        Mat mat = bufferedImageToMat(screenshot);
+        VisionTimings.record(Stage.DECODE, start);
+        return record(mat);
+    }
+
+    private Mat record(Mat screen) {
+        SessionRecorder current = recorder;
+        if (current != null) {
+            recordedFrames.put(screen, current.recordFrame(screen));
+        }
+        return screen;
+    }
+
+    private void record(String operation, Mat image, Rect region, String result, long startNanos) {
+        SessionRecorder current = recorder;
+        if (current != null) {
+            Long frameIndex = recordedFrames.get(image);
+            current.recordCall(frameIndex == null ? -1 : frameIndex, operation, region, result,
+                System.nanoTime() - startNanos);
+        }
     }
 
     public Mat preprocessImage(Mat image) {
+        return preprocessImage(image, ocrProfile);
+    }
+
+    public Mat preprocessImage(Mat image, OcrProfile profile) {
+        long start = System.nanoTime();
+        try {
+            return runPreprocessing(image, profile);
+        } finally {
+            VisionTimings.record(Stage.PREPROCESS, start);
+        }
+    }
+
+    private Mat runPreprocessing(Mat image, OcrProfile profile) {
+        boolean debug = profile.isDebugImages();
         Mat processed = new Mat();
         
         // Convert to grayscale if needed
@@ -108,26 +272,34 @@ public class MobileVisionQuery {
         Mat blurred = new Mat();
         GaussianBlur(processed, blurred, new Size(3, 3), 0);
         processed.release();
-        saveMatAsImage(blurred, "debug_blurred.png");
+        if (debug) {
+            saveMatAsImage(blurred, "debug_blurred.png");
+        }
         
         // Apply bilateral filter with adjusted parameters
         Mat denoised = new Mat();
         bilateralFilter(blurred, denoised, 5, 50, 50);
         blurred.release();
-        saveMatAsImage(denoised, "debug_denoised.png");
+        if (debug) {
+            saveMatAsImage(denoised, "debug_denoised.png");
+        }
         
         // Enhance contrast using CLAHE with adjusted clip limit
         Mat equalized = new Mat();
         CLAHE clahe = createCLAHE(2.0, new Size(4, 4));  // Reduced tile size and clip limit
         clahe.apply(denoised, equalized);
         denoised.release();
-        saveMatAsImage(equalized, "debug_clahe.png");
+        if (debug) {
+            saveMatAsImage(equalized, "debug_clahe.png");
+        }
         
         // Apply additional contrast stretching
         Mat stretched = new Mat();
         normalize(equalized, stretched, 0.0, 255.0, NORM_MINMAX, CV_8U, null);
         equalized.release();
-        saveMatAsImage(stretched, "debug_stretched.png");
+        if (debug) {
+            saveMatAsImage(stretched, "debug_stretched.png");
+        }
         
         // Create sharpening kernel
         float[] kernelData = new float[] {
@@ -146,13 +318,18 @@ public class MobileVisionQuery {
         filter2D(stretched, sharpened, -1, kernel);
         stretched.release();
         kernel.release();
-        saveMatAsImage(sharpened, "debug_sharpened.png");
+        if (debug) {
+            saveMatAsImage(sharpened, "debug_sharpened.png");
+        }
         
         // Apply adaptive thresholding with adjusted block size and C value
         Mat binary = new Mat();
-        adaptiveThreshold(sharpened, binary, 255, ADAPTIVE_THRESH_GAUSSIAN_C, THRESH_BINARY, 21, 8);
+        adaptiveThreshold(sharpened, binary, 255, ADAPTIVE_THRESH_GAUSSIAN_C, THRESH_BINARY,
+            profile.getBlockSize(), profile.getThresholdC());
         sharpened.release();
-        saveMatAsImage(binary, "debug_binary.png");
+        if (debug) {
+            saveMatAsImage(binary, "debug_binary.png");
+        }
         
         // Apply morphological operations with adjusted kernel size
         Mat element = getStructuringElement(MORPH_RECT, new Size(2, 2));
@@ -167,15 +344,44 @@ public class MobileVisionQuery {
         element.release();
         
         // Save morphologically cleaned image
-        saveMatAsImage(cleaned, "debug_cleaned.png");
+        if (debug) {
+            saveMatAsImage(cleaned, "debug_cleaned.png");
+        }
         
         return cleaned;
     }
 
+    /**
+     * Reads fixed-font text (scores, timers, amounts) with learned glyph templates, falling back to
+     * {@link #performOCR(Mat, Rect)} when the recogniser's confidence is below {@code minConfidence}.
+     */
+    public String readText(Mat image, Rect region, GlyphRecognizer recognizer, double minConfidence) {
+        long start = System.nanoTime();
+        GlyphReading reading = recognizer.recognize(image, region);
+        VisionTimings.record(Stage.OCR, start);
+        if (reading.isConfident(minConfidence)) {
+            record("glyph", image, region, reading.getText(), start);
+            return reading.getText();
+        }
+        return performOCR(image, region);
+    }
+
+    @Override
     public String performOCR(Mat image, Rect region) {
+        return performOCR(image, region, ocrProfile);
+    }
+
+    public String performOCR(Mat image, Rect region, OcrProfile profile) {
+        long start = System.nanoTime();
+        String text = runOCR(image, region, profile);
+        record("ocr", image, region, text, start);
+        return text;
+    }
+
+    private String runOCR(Mat image, Rect region, OcrProfile profile) {
         try {
             // Add padding to ensure full text capture
-            int padding = 40;  // Increased padding
+            int padding = profile.getPadding();
             int x = Math.max(0, region.x() - padding);
             int y = Math.max(0, region.y() - padding);
             int width = Math.min(image.cols() - x, region.width() + 2 * padding);
@@ -192,102 +398,53 @@ public class MobileVisionQuery {
             
             // Scale up for better OCR
             Mat scaledRoi = new Mat();
-            double scale = 6.0;  // Increased scaling factor
+            double scale = profile.getScale();
             resize(roi, scaledRoi, new Size(), scale, scale, INTER_CUBIC);
             roi.release();
             
             // Preprocess the region
-            Mat processedRoi = preprocessImage(scaledRoi);
+            Mat processedRoi = preprocessImage(scaledRoi, profile);
             scaledRoi.release();
             
             // Save processed image for debugging
-            saveMatAsImage(processedRoi, "debug_" + x + "_" + y + ".png");
-            
-            // Convert to BufferedImage
-            BufferedImage bufferedImage = matToBufferedImage(processedRoi);
-            processedRoi.release();
-            
-            // Configure Tesseract for this specific region
-            tesseract.setPageSegMode(6);
-            tesseract.setTessVariable("tessedit_char_whitelist", "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789 हिंदी");
-            tesseract.setTessVariable("tessedit_do_invert", "0");
-            tesseract.setTessVariable("debug_file", "/dev/null");
-            tesseract.setTessVariable("tessedit_pageseg_mode", "6");
-            tesseract.setTessVariable("tessedit_write_images", "1");
-            tesseract.setTessVariable("textord_heavy_nr", "1");
-            tesseract.setTessVariable("edges_max_children_per_outline", "50");
-            tesseract.setTessVariable("edges_children_per_grandchild", "20");
-            tesseract.setTessVariable("edges_children_count_limit", "50");
-            tesseract.setTessVariable("edges_min_nonhole", "15");
-            tesseract.setTessVariable("edges_max_nonhole", "3");
-            tesseract.setTessVariable("textord_show_tables", "0");
-            tesseract.setTessVariable("textord_tablefind_recognize_tables", "0");
-            tesseract.setTessVariable("textord_tabfind_find_tables", "0");
-            tesseract.setTessVariable("tessedit_enable_dict_correction", "1");
-            tesseract.setTessVariable("tessedit_enable_bigram_correction", "1");
-            tesseract.setTessVariable("tessedit_enable_fix_fuzzy_spaces", "1");
-            tesseract.setTessVariable("tessedit_unrej_any_wd", "1");
-            tesseract.setTessVariable("tessedit_fix_fuzzy_spaces", "1");
-            tesseract.setTessVariable("tessedit_char_blacklist", "{}[]()@#$%^&*+=<>~`");
-            tesseract.setTessVariable("tessedit_fix_hyphens", "1");
-            tesseract.setTessVariable("tessedit_write_params_to_file", "");
-            tesseract.setTessVariable("textord_force_make_prop_words", "F");
-            tesseract.setTessVariable("textord_debug_block_rejection", "0");
-            tesseract.setTessVariable("textord_min_linesize", "2.5");
-            tesseract.setTessVariable("textord_debug_tabfind", "0");
-            tesseract.setTessVariable("textord_show_initial_words", "0");
-            tesseract.setTessVariable("textord_show_new_words", "0");
-            tesseract.setTessVariable("textord_show_fixed_words", "0");
-            tesseract.setTessVariable("language_model_penalty_non_freq_dict_word", "0.5");
-            tesseract.setTessVariable("language_model_penalty_non_dict_word", "0.5");
-            tesseract.setTessVariable("language_model_ngram_small_prob", "0.5");
-            tesseract.setTessVariable("tessedit_minimal_rejection", "1");
-            tesseract.setTessVariable("tessedit_zero_rejection", "1");
-            tesseract.setTessVariable("tessedit_minimal_rejection", "1");
-            tesseract.setTessVariable("tessedit_write_rep_codes", "1");
-            tesseract.setTessVariable("tessedit_tess_adaption_mode", "2");
-            tesseract.setTessVariable("tessedit_cluster_threshold", "0.5");
-            tesseract.setTessVariable("classify_character_fragments_garbage", "0");
-            tesseract.setTessVariable("classify_bln_numeric_mode", "1");
-            tesseract.setTessVariable("classify_integer_matcher_multiplier", "10");
-            tesseract.setTessVariable("classify_cp_cutoff_strength", "0.5");
-            tesseract.setTessVariable("classify_class_pruner_threshold", "200");
-            tesseract.setTessVariable("classify_class_pruner_multiplier", "15");
-            tesseract.setTessVariable("textord_noise_sizelimit", "0.5");
-            tesseract.setTessVariable("textord_noise_normratio", "10");
-            tesseract.setTessVariable("textord_noise_snr", "0.5");
-            tesseract.setTessVariable("textord_min_blob_height_fraction", "0.5");
-            tesseract.setTessVariable("textord_spline_minblobs", "8");
-            tesseract.setTessVariable("textord_spline_medianwin", "6");
-            tesseract.setTessVariable("textord_max_blob_overlaps", "4");
-            tesseract.setTessVariable("textord_min_xheight", "6");
-            tesseract.setTessVariable("textord_lms_line_trials", "12");
-            tesseract.setTessVariable("textord_tabfind_show_strokewidths", "0");
-            tesseract.setTessVariable("textord_tabfind_show_images", "0");
-            
-            // Perform OCR multiple times and use the most common result
-            String result1 = tesseract.doOCR(bufferedImage).trim();
-            String result2 = tesseract.doOCR(bufferedImage).trim();
-            String result3 = tesseract.doOCR(bufferedImage).trim();
-            String result4 = tesseract.doOCR(bufferedImage).trim();
-            String result5 = tesseract.doOCR(bufferedImage).trim();
-            
-            // Clean up the results
-            result1 = result1.replaceAll("\\s+", " ").trim();
-            result2 = result2.replaceAll("\\s+", " ").trim();
-            result3 = result3.replaceAll("\\s+", " ").trim();
-            result4 = result4.replaceAll("\\s+", " ").trim();
-            result5 = result5.replaceAll("\\s+", " ").trim();
+            if (profile.isDebugImages()) {
+                saveMatAsImage(processedRoi, "debug_" + x + "_" + y + ".png");
+            }
             
-            // Return the most common result
-            List<String> results = Arrays.asList(result1, result2, result3, result4, result5);
-            Map<String, Long> freqMap = results.stream()
-                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
-            return freqMap.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("");
-        } catch (TesseractException e) {
+            // Engines are shared by the JVM; a call waits only while every engine is busy
+            OcrEnginePool engines = NativeRuntime.get().ocrEngines(OCR_LANGUAGE);
+            long ocrStart = System.nanoTime();
+            OcrEngine engine = null;
+            try {
+                engine = engines.borrow();
+                Map<String, String> variables = new LinkedHashMap<>(BASE_VARIABLES);
+                variables.put("tessedit_char_whitelist", profile.getWhitelist());
+                variables.putAll(profile.getVariables());
+                // tessinput.tif has a fixed name in the working directory, like the other debug images
+                variables.put("tessedit_write_images", profile.isDebugImages() ? "1" : "0");
+                engine.configure(profile.getPageSegMode(), variables);
+
+                // Perform OCR multiple times and use the most common result
+                List<String> results = new ArrayList<>(profile.getRepeats());
+                for (int i = 0; i < profile.getRepeats(); i++) {
+                    results.add(engine.recognize(processedRoi).replaceAll("\\s+", " ").trim());
+                }
+
+                // Return the most common result
+                Map<String, Long> freqMap = results.stream()
+                    .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+                return freqMap.entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey)
+                    .orElse("");
+            } finally {
+                if (engine != null) {
+                    engines.release(engine);
+                }
+                VisionTimings.record(Stage.OCR, ocrStart);
+                processedRoi.release();
+            }
+        } catch (RuntimeException e) {
             System.err.println("OCR failed: " + e.getMessage());
             e.printStackTrace();
             return "";
@@ -332,7 +489,46 @@ public class MobileVisionQuery {
         }
     }
 
+    public boolean findLogoInRegion(Mat image, Rect region, FeatureLogoDetector detector, String templateName) {
+        return locateLogoInRegion(image, region, detector, templateName).isFound();
+    }
+
+    public LogoMatch locateLogoInRegion(Mat image, Rect region, FeatureLogoDetector detector, String templateName) {
+        long start = System.nanoTime();
+        LogoMatch match = detectLogo(image, region, detector, templateName, start);
+        record("feature-logo", image, region, templateName + "=" + match.isFound(), start);
+        return match;
+    }
+
+    private LogoMatch detectLogo(Mat image, Rect region, FeatureLogoDetector detector, String templateName,
+                                 long start) {
+        try {
+            return detector.locate(image, region, templateName);
+        } catch (IllegalArgumentException e) {
+            // An unknown template name is a caller error, not a detection failure: keep it out of the catch below
+            throw e;
+        } catch (RuntimeException e) {
+            System.err.println("Error in feature logo detection: " + e.getMessage());
+            return LogoMatch.notFound(0, 0);
+        } finally {
+            VisionTimings.record(Stage.MATCH, start);
+        }
+    }
+
+    @Override
     public boolean findLogoInRegion(Mat image, Rect region, Mat template) {
+        return findLogoInRegion(image, region, template, ocrProfile);
+    }
+
+    /** Matches {@code template} with both images preprocessed by {@code profile}. */
+    public boolean findLogoInRegion(Mat image, Rect region, Mat template, OcrProfile profile) {
+        long start = System.nanoTime();
+        boolean found = matchLogo(image, region, template, profile);
+        record("logo", image, region, String.valueOf(found), start);
+        return found;
+    }
+
+    private boolean matchLogo(Mat image, Rect region, Mat template, OcrProfile profile) {
         try {
             // Extract region of interest
             Mat roi = new Mat(image, region);
@@ -348,12 +544,13 @@ public class MobileVisionQuery {
             resize(grayTemplate, resizedTemplate, new Size(region.width(), region.height()));
             
             // Preprocess both images for better matching
-            Mat processedRoi = preprocessImage(grayRoi);
-            Mat processedTemplate = preprocessImage(resizedTemplate);
+            Mat processedRoi = preprocessImage(grayRoi, profile);
+            Mat processedTemplate = preprocessImage(resizedTemplate, profile);
             grayRoi.release();
             resizedTemplate.release();
             
             // Perform template matching with multiple methods
+            long matchStart = System.nanoTime();
             Mat result1 = new Mat();
             Mat result2 = new Mat();
             Mat result3 = new Mat();
@@ -379,6 +576,7 @@ public class MobileVisionQuery {
             double matchValue1 = maxVal1.get();
             double matchValue2 = maxVal2.get();
             double matchValue3 = 1.0 - minVal3.get(); // For TM_SQDIFF_NORMED, smaller values are better
+            VisionTimings.record(Stage.MATCH, matchStart);
             
             // Clean up
             roi.release();
@@ -407,4 +605,60 @@ public class MobileVisionQuery {
             return false;
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Frame index per Mat object. Keys are held weakly and compared by identity: JavaCPP Mats are equal when
+     * their native addresses are, and a freed address is reused by later Mats, which would inherit a stale index.
+     */
+    private static final class FrameIndices {
+        private final Map<IdentityKey, Long> indices = new HashMap<>();
+        private final ReferenceQueue<Mat> collected = new ReferenceQueue<>();
+
+        synchronized void put(Mat mat, long index) {
+            purge();
+            indices.put(new IdentityKey(mat, collected), index);
+        }
+
+        synchronized Long get(Mat mat) {
+            purge();
+            return indices.get(new IdentityKey(mat, null));
+        }
+
+        synchronized void clear() {
+            indices.clear();
+        }
+
+        private void purge() {
+            Reference<? extends Mat> key;
+            while ((key = collected.poll()) != null) {
+                indices.remove(key);
+            }
+        }
+    }
+
+    private static final class IdentityKey extends WeakReference<Mat> {
+        private final int hash;
+
+        IdentityKey(Mat mat, ReferenceQueue<Mat> queue) {
+            super(mat, queue);
+            this.hash = System.identityHashCode(mat);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof IdentityKey)) {
+                return false;
+            }
+            Mat mat = get();
+            return mat != null && mat == ((IdentityKey) other).get();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.vision.mobile;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Preprocessing and Tesseract settings used by {@link MobileVisionQuery#performOCR}. The defaults reproduce
+ * the hand-tuned pipeline; {@link OcrTuner} measures alternatives and exports the winner with
+ * {@link #store(Path, String)}. Setters return {@code this} so profiles can be chained:
+ * <pre>
+ * visionQuery.setOcrProfile(OcrProfile.load(Paths.get("ocr-profile.properties")));
+ * visionQuery.setOcrProfile(new OcrProfile().setScale(3.0).setRepeats(1).setDebugImages(false));
+ * </pre>
+ * Properties use the keys {@code ocr.scale}, {@code ocr.padding}, {@code ocr.blockSize}, {@code ocr.thresholdC},
+ * {@code ocr.pageSegMode}, {@code ocr.repeats}, {@code ocr.whitelist}, {@code ocr.debugImages} and
+ * {@code ocr.var.<tesseract variable>}; missing keys keep their default.
+ */
+public class OcrProfile {
+    private static final String PREFIX = "ocr.";
+    private static final String VARIABLE_PREFIX = PREFIX + "var.";
+
+    private double scale = 6.0;
+    private int padding = MobileVisionQuery.OCR_PADDING;
+    private int blockSize = 21;
+    private double thresholdC = 8;
+    private int pageSegMode = 6;
+    private int repeats = 5;
+    private String whitelist = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789 हिंदी";
+    private boolean debugImages = true;
+    private final Map<String, String> variables = new LinkedHashMap<>(defaultVariables());
+
+    public OcrProfile copy() {
+        OcrProfile copy = new OcrProfile()
+            .setScale(scale)
+            .setPadding(padding)
+            .setBlockSize(blockSize)
+            .setThresholdC(thresholdC)
+            .setPageSegMode(pageSegMode)
+            .setRepeats(repeats)
+            .setWhitelist(whitelist)
+            .setDebugImages(debugImages);
+        copy.variables.clear();
+        copy.variables.putAll(variables);
+        return copy;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    /** Upscaling factor applied to the region before preprocessing. */
+    public OcrProfile setScale(double scale) {
+        if (scale <= 0) {
+            throw new IllegalArgumentException("Scale must be positive");
+        }
+        this.scale = scale;
+        return this;
+    }
+
+    public int getPadding() {
+        return padding;
+    }
+
+    /** Pixels added around the region so glyphs touching its edge are read completely. */
+    public OcrProfile setPadding(int padding) {
+        this.padding = padding;
+        return this;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /** Neighbourhood size of the adaptive threshold; must be odd and at least 3. */
+    public OcrProfile setBlockSize(int blockSize) {
+        if (blockSize < 3 || blockSize % 2 == 0) {
+            throw new IllegalArgumentException("Block size must be odd and at least 3");
+        }
+        this.blockSize = blockSize;
+        return this;
+    }
+
+    public double getThresholdC() {
+        return thresholdC;
+    }
+
+    /** Constant subtracted from the neighbourhood mean by the adaptive threshold. */
+    public OcrProfile setThresholdC(double thresholdC) {
+        this.thresholdC = thresholdC;
+        return this;
+    }
+
+    public int getPageSegMode() {
+        return pageSegMode;
+    }
+
+    public OcrProfile setPageSegMode(int pageSegMode) {
+        this.pageSegMode = pageSegMode;
+        return this;
+    }
+
+    public int getRepeats() {
+        return repeats;
+    }
+
+    /** Number of OCR passes whose most common result is returned. */
+    public OcrProfile setRepeats(int repeats) {
+        if (repeats < 1) {
+            throw new IllegalArgumentException("Repeats must be at least 1");
+        }
+        this.repeats = repeats;
+        return this;
+    }
+
+    public String getWhitelist() {
+        return whitelist;
+    }
+
+    public OcrProfile setWhitelist(String whitelist) {
+        this.whitelist = whitelist;
+        return this;
+    }
+
+    public boolean isDebugImages() {
+        return debugImages;
+    }
+
+    /**
+     * Whether each preprocessing stage is written to a {@code debug_*.png} file in the working directory, and
+     * Tesseract's input to {@code tessinput.tif}.
+     */
+    public OcrProfile setDebugImages(boolean debugImages) {
+        this.debugImages = debugImages;
+        return this;
+    }
+
+    /** Additional Tesseract variables applied before each OCR call. */
+    public Map<String, String> getVariables() {
+        return Collections.unmodifiableMap(variables);
+    }
+
+    public OcrProfile setVariable(String name, String value) {
+        variables.put(name, value);
+        return this;
+    }
+
+    public OcrProfile removeVariable(String name) {
+        variables.remove(name);
+        return this;
+    }
+
+    public static OcrProfile load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties);
+    }
+
+    public static OcrProfile fromProperties(Properties properties) {
+        OcrProfile profile = new OcrProfile();
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key).trim();
+            if (key.startsWith(VARIABLE_PREFIX)) {
+                profile.setVariable(key.substring(VARIABLE_PREFIX.length()), value);
+                continue;
+            }
+            switch (key) {
+                case PREFIX + "scale":
+                    profile.setScale(Double.parseDouble(value));
+                    break;
+                case PREFIX + "padding":
+                    profile.setPadding(Integer.parseInt(value));
+                    break;
+                case PREFIX + "blockSize":
+                    profile.setBlockSize(Integer.parseInt(value));
+                    break;
+                case PREFIX + "thresholdC":
+                    profile.setThresholdC(Double.parseDouble(value));
+                    break;
+                case PREFIX + "pageSegMode":
+                    profile.setPageSegMode(Integer.parseInt(value));
+                    break;
+                case PREFIX + "repeats":
+                    profile.setRepeats(Integer.parseInt(value));
+                    break;
+                case PREFIX + "whitelist":
+                    // Not trimmed: the whitelist may deliberately contain a space
+                    profile.setWhitelist(properties.getProperty(key));
+                    break;
+                case PREFIX + "debugImages":
+                    profile.setDebugImages(Boolean.parseBoolean(value));
+                    break;
+                default:
+                    // Unrelated keys are allowed so profiles can live in a shared config file
+                    break;
+            }
+        }
+        return profile;
+    }
+
+    public Properties toProperties() {
+        Properties properties = new Properties();
+        properties.setProperty(PREFIX + "scale", String.valueOf(scale));
+        properties.setProperty(PREFIX + "padding", String.valueOf(padding));
+        properties.setProperty(PREFIX + "blockSize", String.valueOf(blockSize));
+        properties.setProperty(PREFIX + "thresholdC", String.valueOf(thresholdC));
+        properties.setProperty(PREFIX + "pageSegMode", String.valueOf(pageSegMode));
+        properties.setProperty(PREFIX + "repeats", String.valueOf(repeats));
+        properties.setProperty(PREFIX + "whitelist", whitelist);
+        properties.setProperty(PREFIX + "debugImages", String.valueOf(debugImages));
+        variables.forEach((name, value) -> properties.setProperty(VARIABLE_PREFIX + name, value));
+        return properties;
+    }
+
+    public void store(Path file, String comment) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            toProperties().store(writer, comment);
+        }
+    }
+
+    /** Short description of the tuned parameters, used in tuner reports. */
+    public String describe() {
+        return String.format("scale=%.1f padding=%d blockSize=%d C=%.0f psm=%d repeats=%d",
+            scale, padding, blockSize, thresholdC, pageSegMode, repeats);
+    }
+
+    @Override
+    public String toString() {
+        return "OcrProfile{" + describe() + ", debugImages=" + debugImages + ", variables=" + variables.size() + "}";
+    }
+
+    private static Map<String, String> defaultVariables() {
+        Map<String, String> v = new LinkedHashMap<>();
+        v.put("tessedit_do_invert", "0");
+        v.put("debug_file", "/dev/null");
+        v.put("textord_heavy_nr", "1");
+        v.put("edges_max_children_per_outline", "50");
+        v.put("edges_children_per_grandchild", "20");
+        v.put("edges_children_count_limit", "50");
+        v.put("edges_min_nonhole", "15");
+        v.put("edges_max_nonhole", "3");
+        v.put("textord_show_tables", "0");
+        v.put("textord_tablefind_recognize_tables", "0");
+        v.put("textord_tabfind_find_tables", "0");
+        v.put("tessedit_enable_dict_correction", "1");
+        v.put("tessedit_enable_bigram_correction", "1");
+        v.put("tessedit_enable_fix_fuzzy_spaces", "1");
+        v.put("tessedit_unrej_any_wd", "1");
+        v.put("tessedit_fix_fuzzy_spaces", "1");
+        v.put("tessedit_char_blacklist", "{}[]()@#$%^&*+=<>~`");
+        v.put("tessedit_fix_hyphens", "1");
+        v.put("tessedit_write_params_to_file", "");
+        v.put("textord_force_make_prop_words", "F");
+        v.put("textord_debug_block_rejection", "0");
+        v.put("textord_min_linesize", "2.5");
+        v.put("textord_debug_tabfind", "0");
+        v.put("textord_show_initial_words", "0");
+        v.put("textord_show_new_words", "0");
+        v.put("textord_show_fixed_words", "0");
+        v.put("language_model_penalty_non_freq_dict_word", "0.5");
+        v.put("language_model_penalty_non_dict_word", "0.5");
+        v.put("language_model_ngram_small_prob", "0.5");
+        v.put("tessedit_minimal_rejection", "1");
+        v.put("tessedit_zero_rejection", "1");
+        v.put("tessedit_write_rep_codes", "1");
+        v.put("tessedit_tess_adaption_mode", "2");
+        v.put("tessedit_cluster_threshold", "0.5");
+        v.put("classify_character_fragments_garbage", "0");
+        v.put("classify_bln_numeric_mode", "1");
+        v.put("classify_integer_matcher_multiplier", "10");
+        v.put("classify_cp_cutoff_strength", "0.5");
+        v.put("classify_class_pruner_threshold", "200");
+        v.put("classify_class_pruner_multiplier", "15");
+        v.put("textord_noise_sizelimit", "0.5");
+        v.put("textord_noise_normratio", "10");
+        v.put("textord_noise_snr", "0.5");
+        v.put("textord_min_blob_height_fraction", "0.5");
+        v.put("textord_spline_minblobs", "8");
+        v.put("textord_spline_medianwin", "6");
+        v.put("textord_max_blob_overlaps", "4");
+        v.put("textord_min_xheight", "6");
+        v.put("textord_lms_line_trials", "12");
+        v.put("textord_tabfind_show_strokewidths", "0");
+        v.put("textord_tabfind_show_images", "0");
+        return v;
+    }
+}
@@ -0,0 +1,340 @@
+package com.vision.mobile;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMREAD_COLOR;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imread;
+
+/**
+ * Offline search over {@link OcrProfile} candidates. Every candidate reads every labelled sample of a
+ * corpus; candidates are evaluated in parallel, one engine per worker thread. The report lists accuracy
+ * and latency per candidate, marks the Pareto-optimal ones and the most accurate of those is exported as
+ * a profile file that {@link MobileVisionQuery} can load.
+ * <p>
+ * A corpus is a folder of screenshots plus a {@code labels.csv} with one region per line:
+ * <pre>
+ * # image,x,y,width,height,expected text
+ * language.png,270,640,540,480,Choose Language
+ * wallet.png,40,200,300,90,1,250
+ * </pre>
+ * Leave the coordinates empty to read the whole image. Run it with:
+ * <pre>
+ * java -cp ... com.vision.mobile.OcrTuner corpus/ [ocr-profile.properties] [threads]
+ * </pre>
+ */
+@Slf4j
+public class OcrTuner {
+    public static final String LABELS_FILE = "labels.csv";
+
+    /** Reads a region with the given profile; one instance is used per worker thread. */
+    public interface Engine {
+        String read(Mat image, Rect region, OcrProfile profile);
+    }
+
+    private final List<Sample> samples;
+    private final Supplier<Engine> engineFactory;
+    private final int threads;
+
+    public OcrTuner(List<Sample> samples, Supplier<Engine> engineFactory, int threads) {
+        if (samples.isEmpty()) {
+            throw new IllegalArgumentException("Corpus has no samples");
+        }
+        this.samples = new ArrayList<>(samples);
+        this.engineFactory = engineFactory;
+        this.threads = threads;
+    }
+
+    public static List<Sample> loadCorpus(Path directory) throws IOException {
+        List<Sample> samples = new ArrayList<>();
+        Map<String, Mat> images = new HashMap<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(directory.resolve(LABELS_FILE), StandardCharsets.UTF_8)) {
+            lineNumber++;
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            // The expected text is everything after the fifth comma and may itself contain commas
+            String[] fields = line.split(",", 6);
+            if (fields.length != 6) {
+                throw new IOException(LABELS_FILE + " line " + lineNumber + " needs image,x,y,width,height,expected");
+            }
+            String name = fields[0].trim();
+            Mat image = images.get(name);
+            if (image == null) {
+                image = imread(directory.resolve(name).toString(), IMREAD_COLOR);
+                if (image.empty()) {
+                    throw new IOException("Failed to load corpus image " + name);
+                }
+                images.put(name, image);
+            }
+            Rect region = fields[1].trim().isEmpty()
+                ? new Rect(0, 0, image.cols(), image.rows())
+                : new Rect(Integer.parseInt(fields[1].trim()), Integer.parseInt(fields[2].trim()),
+                    Integer.parseInt(fields[3].trim()), Integer.parseInt(fields[4].trim()));
+            samples.add(new Sample(name, image, region, fields[5]));
+        }
+        return samples;
+    }
+
+    /**
+     * Variations of {@code base} over upscaling, adaptive-threshold block size and C, page segmentation and
+     * repeat count. Debug images are always off, and Tesseract's own {@code tessedit_write_images} is
+     * removed, so file writes do not distort latency.
+     */
+    public static List<OcrProfile> defaultCandidates(OcrProfile base) {
+        List<OcrProfile> candidates = new ArrayList<>();
+        for (double scale : new double[] {2, 3, 4, 6}) {
+            for (int blockSize : new int[] {15, 21, 31}) {
+                for (double c : new double[] {4, 8, 12}) {
+                    for (int psm : new int[] {6, 7}) {
+                        for (int repeats : new int[] {1, 5}) {
+                            candidates.add(base.copy()
+                                .setScale(scale)
+                                .setBlockSize(blockSize)
+                                .setThresholdC(c)
+                                .setPageSegMode(psm)
+                                .setRepeats(repeats)
+                                .setDebugImages(false)
+                                .removeVariable("tessedit_write_images"));
+                        }
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /** Evaluates all candidates; results are ordered by accuracy (descending), then latency. */
+    public List<Evaluation> evaluate(List<OcrProfile> candidates) throws InterruptedException {
+        ThreadLocal<Engine> engines = ThreadLocal.withInitial(engineFactory);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ocr-tuner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Evaluation>> futures = new ArrayList<>();
+            for (OcrProfile candidate : candidates) {
+                futures.add(pool.submit(() -> evaluate(engines.get(), candidate)));
+            }
+            List<Evaluation> evaluations = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    evaluations.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    log.warn("Candidate {} failed", candidates.get(i).describe(), e.getCause());
+                }
+                if ((i + 1) % 10 == 0) {
+                    log.info("Evaluated {}/{} candidates", i + 1, futures.size());
+                }
+            }
+            evaluations.sort(Comparator.comparingDouble(Evaluation::getAccuracy).reversed()
+                .thenComparingDouble(Evaluation::getMeanMillis));
+            return evaluations;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Evaluation evaluate(Engine engine, OcrProfile profile) {
+        // Untimed first read so one-off engine initialisation is not charged to the candidate
+        engine.read(samples.get(0).image, samples.get(0).region, profile);
+
+        double accuracySum = 0;
+        int exact = 0;
+        long[] nanos = new long[samples.size()];
+        for (int i = 0; i < samples.size(); i++) {
+            Sample sample = samples.get(i);
+            long start = System.nanoTime();
+            String text = engine.read(sample.image, sample.region, profile);
+            nanos[i] = System.nanoTime() - start;
+            double accuracy = characterAccuracy(text, sample.expected);
+            accuracySum += accuracy;
+            if (accuracy == 1.0) {
+                exact++;
+            }
+        }
+        Arrays.sort(nanos);
+        double meanMillis = Arrays.stream(nanos).average().orElse(0) / 1e6;
+        double p95Millis = nanos[Math.min(nanos.length - 1, (int) Math.ceil(nanos.length * 0.95) - 1)] / 1e6;
+        return new Evaluation(profile, accuracySum / samples.size(), (double) exact / samples.size(),
+            meanMillis, p95Millis);
+    }
+
+    /** Candidates not dominated by any other, i.e. no other is at least as accurate and at least as fast. */
+    public static List<Evaluation> paretoFront(List<Evaluation> evaluations) {
+        List<Evaluation> front = new ArrayList<>();
+        for (Evaluation candidate : evaluations) {
+            boolean dominated = evaluations.stream().anyMatch(other -> other.dominates(candidate));
+            if (!dominated) {
+                front.add(candidate);
+            }
+        }
+        front.sort(Comparator.comparingDouble(Evaluation::getMeanMillis));
+        return front;
+    }
+
+    /** The most accurate evaluation, ties broken by lower latency. */
+    public static Evaluation winner(List<Evaluation> evaluations) {
+        return evaluations.stream()
+            .max(Comparator.comparingDouble(Evaluation::getAccuracy)
+                .thenComparing(Comparator.comparingDouble(Evaluation::getMeanMillis).reversed()))
+            .orElseThrow(() -> new IllegalArgumentException("No evaluations"));
+    }
+
+    /**
+     * 1 minus the edit distance between the normalised texts divided by the longer length, so 1.0 is an
+     * exact match. Case and runs of whitespace are ignored.
+     */
+    static double characterAccuracy(String actual, String expected) {
+        String a = normalise(actual);
+        String e = normalise(expected);
+        int longest = Math.max(a.length(), e.length());
+        if (longest == 0) {
+            return 1.0;
+        }
+        return 1.0 - (double) editDistance(a, e) / longest;
+    }
+
+    private static String normalise(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim();
+    }
+
+    private static int editDistance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j] + 1, current[j - 1] + 1));
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: OcrTuner <corpus dir> [output profile] [threads]");
+            System.exit(2);
+        }
+        Path corpus = Paths.get(args[0]);
+        Path output = Paths.get(args.length > 1 ? args[1] : "ocr-profile.properties");
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        List<Sample> samples = loadCorpus(corpus);
+        OcrProfile base = new MobileVisionQuery((FrameSource) null).getOcrProfile();
+        List<OcrProfile> candidates = defaultCandidates(base);
+        log.info("Evaluating {} candidates on {} samples with {} threads", candidates.size(), samples.size(), threads);
+
+        OcrTuner tuner = new OcrTuner(samples, () -> {
+            MobileVisionQuery engine = new MobileVisionQuery((FrameSource) null);
+            return engine::performOCR;
+        }, threads);
+        List<Evaluation> evaluations = tuner.evaluate(candidates);
+        List<Evaluation> front = paretoFront(evaluations);
+
+        System.out.println(String.format("%-8s %-8s %-9s %-9s %s", "accuracy", "exact", "mean ms", "p95 ms", "profile"));
+        for (Evaluation evaluation : evaluations) {
+            System.out.println(evaluation.format() + (front.contains(evaluation) ? "  [pareto]" : ""));
+        }
+
+        Evaluation best = winner(front);
+        best.getProfile().store(output, "Exported by OcrTuner from " + corpus.toAbsolutePath() + ": " + best.format());
+        System.out.println("Wrote " + output.toAbsolutePath() + " (" + best.getProfile().describe() + ")");
+    }
+
+    /** One labelled region of a corpus image. */
+    public static class Sample {
+        private final String name;
+        private final Mat image;
+        private final Rect region;
+        private final String expected;
+
+        public Sample(String name, Mat image, Rect region, String expected) {
+            this.name = name;
+            this.image = image;
+            this.region = region;
+            this.expected = expected;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getExpected() {
+            return expected;
+        }
+    }
+
+    /** Accuracy and latency of one candidate profile over the whole corpus. */
+    public static class Evaluation {
+        private final OcrProfile profile;
+        private final double accuracy;
+        private final double exactRatio;
+        private final double meanMillis;
+        private final double p95Millis;
+
+        Evaluation(OcrProfile profile, double accuracy, double exactRatio, double meanMillis, double p95Millis) {
+            this.profile = profile;
+            this.accuracy = accuracy;
+            this.exactRatio = exactRatio;
+            this.meanMillis = meanMillis;
+            this.p95Millis = p95Millis;
+        }
+
+        public OcrProfile getProfile() {
+            return profile;
+        }
+
+        /** Mean character accuracy over all samples, between 0 and 1. */
+        public double getAccuracy() {
+            return accuracy;
+        }
+
+        /** Fraction of samples read exactly. */
+        public double getExactRatio() {
+            return exactRatio;
+        }
+
+        public double getMeanMillis() {
+            return meanMillis;
+        }
+
+        public double getP95Millis() {
+            return p95Millis;
+        }
+
+        boolean dominates(Evaluation other) {
+            return accuracy >= other.accuracy && meanMillis <= other.meanMillis
+                && (accuracy > other.accuracy || meanMillis < other.meanMillis);
+        }
+
+        String format() {
+            return String.format("%-8.3f %-8.3f %-9.1f %-9.1f %s", accuracy, exactRatio, meanMillis, p95Millis,
+                profile.describe());
+        }
+
+        @Override
+        public String toString() {
+            return "Evaluation{" + format().trim() + "}";
+        }
+    }
+}
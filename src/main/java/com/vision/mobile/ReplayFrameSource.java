@@ -0,0 +1,213 @@
+package com.vision.mobile;
+
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.vision.mobile.SessionRecorder.*;
+
+/**
+ * Replays a spool file written by {@link SessionRecorder} as fast as frames are requested. Frames are Mats
+ * over the memory-mapped file, so there is neither screenshot decoding nor a pixel copy; the mapping is
+ * copy-on-write, so callers may still draw on a frame without changing the file on disk (the change is
+ * visible to later reads of the same frame from this source).
+ * <p>
+ * Frames stay valid until the source is closed. {@link #rewind()} starts the replay again, which lets one
+ * recording drive repeated load-test iterations.
+ */
+public class ReplayFrameSource implements FrameSource {
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final List<FrameEntry> frames = new ArrayList<>();
+    private final List<RecordedCall> calls = new ArrayList<>();
+    private int nextFrame;
+
+    public ReplayFrameSource(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        long size = channel.size();
+        this.chunks = new MappedByteBuffer[(int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+        try {
+            index(size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Reads every record header once so frames can be served without parsing. */
+    private void index(long size) throws IOException {
+        if (size < HEADER_SIZE) {
+            throw new IOException("Not a session spool file: " + file);
+        }
+        ByteBuffer first = chunk(0);
+        if (first.getInt(0) != FILE_MAGIC) {
+            throw new IOException("Not a session spool file: " + file);
+        }
+        if (first.getInt(4) != VERSION) {
+            throw new IOException("Unsupported spool version " + first.getInt(4) + " in " + file);
+        }
+
+        long position = HEADER_SIZE;
+        while (position < size) {
+            int chunkIndex = (int) (position / CHUNK_SIZE);
+            ByteBuffer buffer = chunk(chunkIndex).duplicate();
+            buffer.position((int) (position - chunkIndex * CHUNK_SIZE));
+            byte type = buffer.get();
+            if (type == PADDING) {
+                position = (chunkIndex + 1) * CHUNK_SIZE;
+                continue;
+            }
+            if (type == FRAME) {
+                long index = buffer.getLong();
+                long timestampMicros = buffer.getLong();
+                int rows = buffer.getInt();
+                int cols = buffer.getInt();
+                int matType = buffer.getInt();
+                long length = buffer.getLong();
+                long dataOffset = (chunkIndex * CHUNK_SIZE + buffer.position() + DATA_ALIGNMENT - 1)
+                    / DATA_ALIGNMENT * DATA_ALIGNMENT;
+                frames.add(new FrameEntry(index, timestampMicros, rows, cols, matType, chunkIndex,
+                    (int) (dataOffset - chunkIndex * CHUNK_SIZE)));
+                position = dataOffset + length;
+            } else if (type == CALL) {
+                long frameIndex = buffer.getLong();
+                long timestampMicros = buffer.getLong();
+                long durationNanos = buffer.getLong();
+                String operation = readString(buffer);
+                Rect region = new Rect(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+                String result = readString(buffer);
+                calls.add(new RecordedCall(frameIndex, timestampMicros, durationNanos, operation, region, result));
+                position = chunkIndex * CHUNK_SIZE + buffer.position();
+            } else {
+                throw new IOException("Corrupt spool file " + file + " at offset " + position);
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private MappedByteBuffer chunk(int index) throws IOException {
+        if (chunks[index] == null) {
+            long start = index * CHUNK_SIZE;
+            chunks[index] = channel.map(FileChannel.MapMode.PRIVATE, start, Math.min(CHUNK_SIZE, channel.size() - start));
+        }
+        return chunks[index];
+    }
+
+    @Override
+    public synchronized CapturedFrame next() throws IOException {
+        if (nextFrame >= frames.size()) {
+            return null;
+        }
+        return frame(nextFrame++);
+    }
+
+    /** Returns the frame at {@code position} without moving the replay cursor. */
+    public synchronized CapturedFrame frame(int position) throws IOException {
+        FrameEntry entry = frames.get(position);
+        BytePointer data = new BytePointer(chunk(entry.chunk)).position(entry.offset);
+        Mat image = new Mat(entry.rows, entry.cols, entry.type, data);
+        return new CapturedFrame(image, entry.index, entry.timestampMicros);
+    }
+
+    public synchronized void rewind() {
+        nextFrame = 0;
+    }
+
+    public int getFrameCount() {
+        return frames.size();
+    }
+
+    /** Vision calls recorded alongside the frames, in recording order. */
+    public List<RecordedCall> getCalls() {
+        return Collections.unmodifiableList(calls);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private static class FrameEntry {
+        final long index;
+        final long timestampMicros;
+        final int rows;
+        final int cols;
+        final int type;
+        final int chunk;
+        final int offset;
+
+        FrameEntry(long index, long timestampMicros, int rows, int cols, int type, int chunk, int offset) {
+            this.index = index;
+            this.timestampMicros = timestampMicros;
+            this.rows = rows;
+            this.cols = cols;
+            this.type = type;
+            this.chunk = chunk;
+            this.offset = offset;
+        }
+    }
+
+    /** A vision call as it was made during recording, with its result and duration. */
+    public static class RecordedCall {
+        private final long frameIndex;
+        private final long timestampMicros;
+        private final long durationNanos;
+        private final String operation;
+        private final Rect region;
+        private final String result;
+
+        RecordedCall(long frameIndex, long timestampMicros, long durationNanos, String operation, Rect region,
+                     String result) {
+            this.frameIndex = frameIndex;
+            this.timestampMicros = timestampMicros;
+            this.durationNanos = durationNanos;
+            this.operation = operation;
+            this.region = region;
+            this.result = result;
+        }
+
+        /** Index of the frame the call was made against, or -1 if its image was not a recorded frame. */
+        public long getFrameIndex() {
+            return frameIndex;
+        }
+
+        /** Time of the call in microseconds since the recorder was created. */
+        public long getTimestampMicros() {
+            return timestampMicros;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public Rect getRegion() {
+            return region;
+        }
+
+        public String getResult() {
+            return result;
+        }
+    }
+}
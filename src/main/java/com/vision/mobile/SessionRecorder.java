@@ -0,0 +1,197 @@
+package com.vision.mobile;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.Pointer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records the decoded frames and vision calls of a session into a memory-mapped spool file, so the session
+ * can later be replayed by {@link ReplayFrameSource} without a device and without decoding screenshots.
+ * <pre>
+ * try (SessionRecorder recorder = new SessionRecorder(Paths.get("logs/language-selection.spool"))) {
+ *     visionQuery.setRecorder(recorder);
+ *     ... run the test ...
+ * }
+ * MobileVisionQuery replay = new MobileVisionQuery(new ReplayFrameSource(Paths.get("logs/language-selection.spool")));
+ * </pre>
+ * All timestamps in the file (frames and calls) are microseconds since the recorder was created; see
+ * {@link #elapsedMicros()}.
+ * <p>
+ * The file is written in fixed-size chunks that are mapped one at a time; a record never spans two chunks,
+ * so the reader can map the same chunks and wrap frame pixels in Mats without copying.
+ */
+@Slf4j
+public class SessionRecorder implements AutoCloseable {
+    static final int FILE_MAGIC = 0x5653504c; // "VSPL"
+    static final int VERSION = 1;
+    static final long CHUNK_SIZE = 256L * 1024 * 1024;
+    static final int DATA_ALIGNMENT = 64;
+    static final int HEADER_SIZE = 8;
+
+    // Record types; a zero byte pads the rest of a chunk
+    static final byte PADDING = 0;
+    static final byte FRAME = 1;
+    static final byte CALL = 2;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long startNanos = System.nanoTime();
+    private MappedByteBuffer chunk;
+    private long chunkStart;
+    private long frameCount;
+    private long callCount;
+    private boolean closed;
+
+    public SessionRecorder(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mapChunk(0);
+        chunk.putInt(FILE_MAGIC);
+        chunk.putInt(VERSION);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /** Microseconds since this recorder was created, the clock of every timestamp in the file. */
+    public long elapsedMicros() {
+        return (System.nanoTime() - startNanos) / 1000;
+    }
+
+    /** Appends a copy of {@code image}'s pixels stamped with {@link #elapsedMicros()} and returns its frame index. */
+    public long recordFrame(Mat image) {
+        return recordFrame(image, elapsedMicros());
+    }
+
+    /**
+     * Appends a copy of {@code image}'s pixels and returns its frame index. {@code timestampMicros} must be
+     * on the recorder's clock, i.e. relative to its creation.
+     */
+    public synchronized long recordFrame(Mat image, long timestampMicros) {
+        Mat continuous = image.isContinuous() ? image : image.clone();
+        try {
+            long length = continuous.total() * continuous.elemSize();
+            int header = 1 + 8 + 8 + 4 + 4 + 4 + 8;
+            reserve(header + DATA_ALIGNMENT + length);
+            long dataOffset = align(position() + header);
+
+            long index = frameCount++;
+            chunk.put(FRAME);
+            chunk.putLong(index);
+            chunk.putLong(timestampMicros);
+            chunk.putInt(continuous.rows());
+            chunk.putInt(continuous.cols());
+            chunk.putInt(continuous.type());
+            chunk.putLong(length);
+            int dataPosition = (int) (dataOffset - chunkStart);
+            Pointer.memcpy(new BytePointer(chunk).position(dataPosition), continuous.data(), length);
+            chunk.position(dataPosition + (int) length);
+            return index;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to record frame to " + file, e);
+        } finally {
+            if (continuous != image) {
+                continuous.release();
+            }
+        }
+    }
+
+    /**
+     * Appends a vision call made against frame {@code frameIndex}, as returned by {@link #recordFrame}, or -1
+     * when the call's image is not a recorded frame.
+     */
+    public synchronized void recordCall(long frameIndex, String operation, Rect region, String result,
+                                        long durationNanos) {
+        byte[] name = operation.getBytes(StandardCharsets.UTF_8);
+        byte[] value = (result == null ? "" : result).getBytes(StandardCharsets.UTF_8);
+        try {
+            reserve(1 + 8 + 8 + 8 + 4 + name.length + 16 + 4 + value.length);
+            chunk.put(CALL);
+            chunk.putLong(frameIndex);
+            chunk.putLong(elapsedMicros());
+            chunk.putLong(durationNanos);
+            chunk.putInt(name.length);
+            chunk.put(name);
+            chunk.putInt(region.x());
+            chunk.putInt(region.y());
+            chunk.putInt(region.width());
+            chunk.putInt(region.height());
+            chunk.putInt(value.length);
+            chunk.put(value);
+            callCount++;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to record call to " + file, e);
+        }
+    }
+
+    public synchronized long getFrameCount() {
+        return frameCount;
+    }
+
+    public synchronized long getCallCount() {
+        return callCount;
+    }
+
+    private long position() {
+        return chunkStart + chunk.position();
+    }
+
+    private static long align(long offset) {
+        return (offset + DATA_ALIGNMENT - 1) / DATA_ALIGNMENT * DATA_ALIGNMENT;
+    }
+
+    /** Makes sure the next {@code length} bytes fit in the current chunk, moving to the next one if not. */
+    private void reserve(long length) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Recorder is closed");
+        }
+        if (length > CHUNK_SIZE) {
+            throw new IllegalArgumentException("Record of " + length + " bytes exceeds the spool chunk size");
+        }
+        if (chunk.remaining() < length) {
+            // Zero padding tells the reader to skip to the next chunk
+            while (chunk.hasRemaining()) {
+                chunk.put(PADDING);
+            }
+            mapChunk(chunkStart + CHUNK_SIZE);
+        }
+    }
+
+    private void mapChunk(long start) throws IOException {
+        if (chunk != null) {
+            chunk.force();
+        }
+        chunkStart = start;
+        chunk = channel.map(FileChannel.MapMode.READ_WRITE, start, CHUNK_SIZE);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        long size = position();
+        chunk.force();
+        chunk = null;
+        try {
+            channel.truncate(size);
+        } catch (IOException e) {
+            // Some platforms refuse to truncate a mapped file; the reader stops at the trailing padding
+            log.warn("Could not trim spool file {} to {} bytes", file, size, e);
+        }
+        channel.close();
+        log.info("Recorded {} frames and {} calls to {}", frameCount, callCount, file);
+    }
+}
@@ -0,0 +1,47 @@
+package com.vision.mobile;
+
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reads frames from a screen recording (MP4 or anything else FFmpeg can open) with {@link FFmpegFrameGrabber}.
+ */
+public class VideoFrameSource implements FrameSource {
+    private final FFmpegFrameGrabber grabber;
+    private final OpenCVFrameConverter.ToMat converter = new OpenCVFrameConverter.ToMat();
+    private long index;
+
+    public VideoFrameSource(File video) throws IOException {
+        if (!video.exists()) {
+            throw new IllegalArgumentException("Video file does not exist: " + video.getAbsolutePath());
+        }
+        grabber = new FFmpegFrameGrabber(video);
+        grabber.start();
+    }
+
+    @Override
+    public CapturedFrame next() throws IOException {
+        Frame frame = grabber.grabImage();
+        if (frame == null) {
+            return null;
+        }
+        // The grabber reuses its buffer for the next frame, so hand out a copy
+        Mat image = converter.convert(frame).clone();
+        return new CapturedFrame(image, index++, grabber.getTimestamp());
+    }
+
+    public double getFrameRate() {
+        return grabber.getFrameRate();
+    }
+
+    @Override
+    public void close() throws IOException {
+        grabber.stop();
+        grabber.release();
+    }
+}
@@ -0,0 +1,15 @@
+package com.vision.mobile;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+
+/**
+ * The image analysis calls of {@link MobileVisionQuery} that do not need a device, so they can be served
+ * in-process or by a shared local vision service.
+ */
+public interface VisionOperations {
+
+    String performOCR(Mat image, Rect region);
+
+    boolean findLogoInRegion(Mat image, Rect region, Mat template);
+}
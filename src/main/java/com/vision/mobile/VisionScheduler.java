@@ -0,0 +1,363 @@
+package com.vision.mobile;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * One shared pool of OCR/matching workers for many device sessions in the same JVM.
+ * <p>
+ * Jobs are tagged with a session (device) id and a priority. Each session has its own FIFO queue; a free
+ * worker takes the job with the highest effective priority among the queue heads, and sessions with equal
+ * priority are served round-robin so a burst from one device cannot starve the others. The effective
+ * priority is the job priority plus the session priority plus one level for every {@code agingMillis} the
+ * job has waited, so a busy high-priority session delays lower ones but never starves them. Queue depth and
+ * wait/run latency are tracked per session; a session that has been idle for a minute is forgotten.
+ * <pre>
+ * VisionScheduler scheduler = new VisionScheduler(Runtime.getRuntime().availableProcessors());
+ * CompletableFuture&lt;String&gt; text = scheduler.submit("pixel7", 0, () -&gt; visionQuery.performOCR(screen, region));
+ * </pre>
+ */
+@Slf4j
+public class VisionScheduler implements AutoCloseable {
+    public static final long DEFAULT_AGING_MILLIS = 100;
+    private static final long IDLE_RETENTION_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final long agingNanos;
+    private final Map<String, Session> sessions = new HashMap<>();
+    private final Map<String, Integer> sessionPriorities = new HashMap<>();
+    private long lastSweepNanos = System.nanoTime();
+    // Sessions with queued work, in round-robin order
+    private final Deque<Session> ready = new ArrayDeque<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private boolean closed;
+
+    public VisionScheduler(int workerCount) {
+        this(workerCount, DEFAULT_AGING_MILLIS);
+    }
+
+    /** @param agingMillis waiting time that raises a queued job by one priority level */
+    public VisionScheduler(int workerCount, long agingMillis) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive");
+        }
+        if (agingMillis <= 0) {
+            throw new IllegalArgumentException("Aging interval must be positive");
+        }
+        this.agingNanos = TimeUnit.MILLISECONDS.toNanos(agingMillis);
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::workerLoop, "vision-scheduler-" + (i + 1));
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /** Adds {@code priority} to every job of {@code session}; use it to favour a device. */
+    public void setSessionPriority(String session, int priority) {
+        lock.lock();
+        try {
+            sessionPriorities.put(session, priority);
+            Session s = sessions.get(session);
+            if (s != null) {
+                s.priority = priority;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(String session, Callable<T> job) {
+        return submit(session, 0, job);
+    }
+
+    public <T> CompletableFuture<T> submit(String session, int priority, Callable<T> job) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Scheduler is closed");
+            }
+            long now = System.nanoTime();
+            forgetIdleSessions(now);
+            Session s = session(session);
+            s.queue.add(new Job<>(priority, job, future, now));
+            s.idleSinceNanos = -1;
+            if (s.queue.size() == 1) {
+                ready.addLast(s);
+            }
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        return future;
+    }
+
+    /**
+     * Reads the next frame of {@code source} on the calling thread and queues {@code analysis} of it.
+     * The frame is released once the analysis has run.
+     */
+    public <T> CompletableFuture<T> submitFrame(String session, int priority, FrameSource source,
+                                                Function<CapturedFrame, T> analysis) throws IOException {
+        CapturedFrame frame = source.next();
+        if (frame == null) {
+            throw new IOException("Frame source for session " + session + " is exhausted");
+        }
+        return submit(session, priority, () -> {
+            try {
+                return analysis.apply(frame);
+            } finally {
+                frame.release();
+            }
+        });
+    }
+
+    public SessionStats stats(String session) {
+        lock.lock();
+        try {
+            Session s = sessions.get(session);
+            return s == null ? new SessionStats(session, 0, 0, 0, 0, 0, 0) : s.snapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, SessionStats> stats() {
+        lock.lock();
+        try {
+            Map<String, SessionStats> all = new TreeMap<>();
+            sessions.forEach((name, s) -> all.put(name, s.snapshot()));
+            return all;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Stops accepting jobs, lets queued jobs finish and waits for the workers. */
+    @Override
+    public void close() throws InterruptedException {
+        lock.lock();
+        try {
+            closed = true;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private Session session(String name) {
+        return sessions.computeIfAbsent(name, key -> {
+            Session s = new Session(key);
+            s.priority = sessionPriorities.getOrDefault(key, 0);
+            return s;
+        });
+    }
+
+    /** Drops sessions idle for longer than the retention, at most once per retention period. */
+    private void forgetIdleSessions(long now) {
+        if (now - lastSweepNanos < IDLE_RETENTION_NANOS) {
+            return;
+        }
+        lastSweepNanos = now;
+        sessions.values().removeIf(s -> s.idleSinceNanos >= 0 && now - s.idleSinceNanos > IDLE_RETENTION_NANOS);
+    }
+
+    private void workerLoop() {
+        while (true) {
+            Session session;
+            Job<?> job;
+            lock.lock();
+            try {
+                while (ready.isEmpty() && !closed) {
+                    workAvailable.awaitUninterruptibly();
+                }
+                if (ready.isEmpty()) {
+                    return;
+                }
+                session = pickSession();
+                job = session.queue.poll();
+                if (!session.queue.isEmpty()) {
+                    ready.addLast(session);
+                }
+                session.running++;
+            } finally {
+                lock.unlock();
+            }
+
+            long started = System.nanoTime();
+            boolean failed = job.run();
+            long finished = System.nanoTime();
+
+            lock.lock();
+            try {
+                session.running--;
+                session.record(started - job.submittedNanos, finished - started, failed);
+                if (session.queue.isEmpty() && session.running == 0) {
+                    session.idleSinceNanos = finished;
+                }
+            } finally {
+                lock.unlock();
+            }
+            // Completed after the stats update so callers that join on the future see their job counted
+            job.complete();
+        }
+    }
+
+    /**
+     * Removes and returns the ready session whose head job has the highest effective priority, including
+     * aging; ties go to the earliest in line.
+     */
+    private Session pickSession() {
+        long now = System.nanoTime();
+        Session best = null;
+        long bestPriority = Long.MIN_VALUE;
+        for (Session s : ready) {
+            Job<?> head = s.queue.peek();
+            long priority = (long) s.priority + head.priority + (now - head.submittedNanos) / agingNanos;
+            if (best == null || priority > bestPriority) {
+                best = s;
+                bestPriority = priority;
+            }
+        }
+        ready.remove(best);
+        return best;
+    }
+
+    private static class Job<T> {
+        private final int priority;
+        private final Callable<T> task;
+        private final CompletableFuture<T> future;
+        private final long submittedNanos;
+        private T result;
+        private Throwable error;
+
+        Job(int priority, Callable<T> task, CompletableFuture<T> future, long submittedNanos) {
+            this.priority = priority;
+            this.task = task;
+            this.future = future;
+            this.submittedNanos = submittedNanos;
+        }
+
+        /** Runs the task and keeps its outcome; returns true when the task failed. */
+        boolean run() {
+            try {
+                result = task.call();
+            } catch (Exception e) {
+                error = e;
+            } catch (Error e) {
+                log.error("Vision job failed with an error", e);
+                error = e;
+            }
+            return error != null;
+        }
+
+        void complete() {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+
+    private static class Session {
+        private final String name;
+        private final Deque<Job<?>> queue = new ArrayDeque<>();
+        private int priority;
+        private int running;
+        // Since when the session has had nothing queued or running, or -1 while it is busy
+        private long idleSinceNanos = -1;
+        private long completed;
+        private long failed;
+        private long totalWaitNanos;
+        private long totalRunNanos;
+        private long maxLatencyNanos;
+
+        Session(String name) {
+            this.name = name;
+        }
+
+        void record(long waitNanos, long runNanos, boolean jobFailed) {
+            completed++;
+            if (jobFailed) {
+                failed++;
+            }
+            totalWaitNanos += waitNanos;
+            totalRunNanos += runNanos;
+            maxLatencyNanos = Math.max(maxLatencyNanos, waitNanos + runNanos);
+        }
+
+        SessionStats snapshot() {
+            return new SessionStats(name, queue.size(), running, completed, failed,
+                completed == 0 ? 0 : (totalWaitNanos + totalRunNanos) / completed, maxLatencyNanos);
+        }
+    }
+
+    /** Point-in-time counters of one session. Latencies cover queue wait plus run time. */
+    public static class SessionStats {
+        private final String session;
+        private final int queueDepth;
+        private final int running;
+        private final long completed;
+        private final long failed;
+        private final long averageLatencyNanos;
+        private final long maxLatencyNanos;
+
+        SessionStats(String session, int queueDepth, int running, long completed, long failed,
+                     long averageLatencyNanos, long maxLatencyNanos) {
+            this.session = session;
+            this.queueDepth = queueDepth;
+            this.running = running;
+            this.completed = completed;
+            this.failed = failed;
+            this.averageLatencyNanos = averageLatencyNanos;
+            this.maxLatencyNanos = maxLatencyNanos;
+        }
+
+        public String getSession() {
+            return session;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getRunning() {
+            return running;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public double getAverageLatencyMillis() {
+            return averageLatencyNanos / 1e6;
+        }
+
+        public double getMaxLatencyMillis() {
+            return maxLatencyNanos / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s{queued=%d, running=%d, completed=%d, failed=%d, avg=%.1fms, max=%.1fms}",
+                session, queueDepth, running, completed, failed, getAverageLatencyMillis(), getMaxLatencyMillis());
+        }
+    }
+}
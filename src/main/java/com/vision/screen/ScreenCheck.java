@@ -0,0 +1,144 @@
+package com.vision.screen;
+
+import com.vision.core.ImageHashes;
+import com.vision.mobile.VisionOperations;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+import org.bytedeco.opencv.opencv_core.Scalar;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import static org.bytedeco.opencv.global.opencv_core.mean;
+
+/**
+ * A compiled screen check. Checks are ordered by {@link #getCost()} so cheap ones run (and fail) first.
+ */
+public abstract class ScreenCheck {
+    private final String name;
+    private final String region;
+
+    protected ScreenCheck(String name, String region) {
+        this.name = name;
+        this.region = region;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Region name, or null for the whole screen. */
+    public String getRegion() {
+        return region;
+    }
+
+    /** Relative cost; checks of equal cost form a tier that runs in parallel. */
+    public abstract int getCost();
+
+    /** Returns null when the check passes, or a short failure description. */
+    public abstract String evaluate(Mat screen, Rect area, VisionOperations operations);
+
+    /** Perceptual hash of the area within {@code maxDistance} bits of a reference hash. Cost 1. */
+    public static class Hash extends ScreenCheck {
+        private final long expected;
+        private final int maxDistance;
+
+        public Hash(String name, String region, long expected, int maxDistance) {
+            super(name, region);
+            this.expected = expected;
+            this.maxDistance = maxDistance;
+        }
+
+        @Override
+        public int getCost() {
+            return 1;
+        }
+
+        @Override
+        public String evaluate(Mat screen, Rect area, VisionOperations operations) {
+            Mat roi = new Mat(screen, area);
+            int distance = ImageHashes.hammingDistance(expected, ImageHashes.differenceHash(roi));
+            roi.release();
+            return distance <= maxDistance ? null : "hash distance " + distance + " > " + maxDistance;
+        }
+    }
+
+    /** Mean BGR colour of the area within {@code tolerance} per channel. Cost 2. */
+    public static class Color extends ScreenCheck {
+        private final double[] expectedBgr;
+        private final double tolerance;
+
+        public Color(String name, String region, double[] expectedBgr, double tolerance) {
+            super(name, region);
+            this.expectedBgr = expectedBgr;
+            this.tolerance = tolerance;
+        }
+
+        @Override
+        public int getCost() {
+            return 2;
+        }
+
+        @Override
+        public String evaluate(Mat screen, Rect area, VisionOperations operations) {
+            Mat roi = new Mat(screen, area);
+            Scalar actual = mean(roi);
+            roi.release();
+            for (int c = 0; c < expectedBgr.length; c++) {
+                if (Math.abs(actual.get(c) - expectedBgr[c]) > tolerance) {
+                    return String.format("mean colour %.0f,%.0f,%.0f not within %.0f of %s",
+                        actual.get(0), actual.get(1), actual.get(2), tolerance, Arrays.toString(expectedBgr));
+                }
+            }
+            return null;
+        }
+    }
+
+    /** Template/logo present in the area. Cost 3. */
+    public static class Template extends ScreenCheck {
+        private final Mat template;
+
+        public Template(String name, String region, Mat template) {
+            super(name, region);
+            this.template = template;
+        }
+
+        @Override
+        public int getCost() {
+            return 3;
+        }
+
+        @Override
+        public String evaluate(Mat screen, Rect area, VisionOperations operations) {
+            return operations.findLogoInRegion(screen, area, template) ? null : "template not found";
+        }
+    }
+
+    /** OCR of the area contains one of the expected alternatives (case-insensitive). Cost 4. */
+    public static class Text extends ScreenCheck {
+        private final List<String> expected;
+
+        public Text(String name, String region, List<String> expected) {
+            super(name, region);
+            this.expected = expected.stream().map(s -> s.toLowerCase(Locale.ROOT)).collect(Collectors.toList());
+        }
+
+        @Override
+        public int getCost() {
+            return 4;
+        }
+
+        @Override
+        public String evaluate(Mat screen, Rect area, VisionOperations operations) {
+            String text = operations.performOCR(screen, area).toLowerCase(Locale.ROOT);
+            for (String alternative : expected) {
+                if (text.contains(alternative)) {
+                    return null;
+                }
+            }
+            return "text '" + text + "' contains none of " + expected;
+        }
+    }
+}
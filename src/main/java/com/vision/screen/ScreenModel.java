@@ -0,0 +1,150 @@
+package com.vision.screen;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Declarative description of a screen: named regions and the checks that identify it.
+ * <p>
+ * Screens are loaded from properties files. Regions are fractions of the screen size
+ * ({@code x,y,width,height}); checks reference a region and carry type-specific attributes:
+ * <pre>
+ * screen.name=language_selection
+ * region.header=0.25,0.05,0.5,0.2
+ * check.logo.type=template
+ * check.logo.region=header
+ * check.logo.template=src/test/resources/templates/initial_screen.png
+ * check.english.type=text
+ * check.english.region=english
+ * check.english.expected=english|eng
+ * </pre>
+ * Supported check types are {@code hash}, {@code color}, {@code template} and {@code text}; see {@link ScreenCheck}.
+ */
+public class ScreenModel {
+    private final String name;
+    private final Map<String, double[]> regions;
+    private final List<CheckSpec> checks;
+
+    public ScreenModel(String name, Map<String, double[]> regions, List<CheckSpec> checks) {
+        this.name = name;
+        this.regions = Collections.unmodifiableMap(new LinkedHashMap<>(regions));
+        this.checks = Collections.unmodifiableList(new ArrayList<>(checks));
+    }
+
+    public static ScreenModel load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        String fileName = file.getFileName().toString();
+        String defaultName = fileName.endsWith(".properties")
+            ? fileName.substring(0, fileName.length() - ".properties".length()) : fileName;
+        return fromProperties(properties.getProperty("screen.name", defaultName), properties);
+    }
+
+    public static ScreenModel fromProperties(String name, Properties properties) {
+        Map<String, double[]> regions = new LinkedHashMap<>();
+        Map<String, Map<String, String>> checkAttributes = new LinkedHashMap<>();
+
+        for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+            String value = properties.getProperty(key).trim();
+            if (key.startsWith("region.")) {
+                regions.put(key.substring("region.".length()), parseRegion(key, value));
+            } else if (key.startsWith("check.")) {
+                String rest = key.substring("check.".length());
+                int dot = rest.indexOf('.');
+                if (dot <= 0) {
+                    throw new IllegalArgumentException("Check property must be check.<name>.<attribute>: " + key);
+                }
+                checkAttributes.computeIfAbsent(rest.substring(0, dot), k -> new LinkedHashMap<>())
+                    .put(rest.substring(dot + 1), value);
+            }
+        }
+
+        List<CheckSpec> checks = new ArrayList<>();
+        checkAttributes.forEach((checkName, attributes) -> {
+            String type = attributes.get("type");
+            if (type == null) {
+                throw new IllegalArgumentException("Check " + checkName + " of screen " + name + " has no type");
+            }
+            String region = attributes.get("region");
+            if (region != null && !regions.containsKey(region)) {
+                throw new IllegalArgumentException("Check " + checkName + " refers to unknown region " + region);
+            }
+            checks.add(new CheckSpec(checkName, type, region, attributes));
+        });
+        return new ScreenModel(name, regions, checks);
+    }
+
+    private static double[] parseRegion(String key, String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException(key + " must be x,y,width,height fractions: " + value);
+        }
+        double[] region = new double[4];
+        for (int i = 0; i < 4; i++) {
+            region[i] = Double.parseDouble(parts[i].trim());
+            if (region[i] < 0 || region[i] > 1) {
+                throw new IllegalArgumentException(key + " values must be between 0 and 1: " + value);
+            }
+        }
+        return region;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Region fractions as {@code {x, y, width, height}}. */
+    public Map<String, double[]> getRegions() {
+        return regions;
+    }
+
+    public List<CheckSpec> getChecks() {
+        return checks;
+    }
+
+    /** One configured check before compilation. */
+    public static class CheckSpec {
+        private final String name;
+        private final String type;
+        private final String region;
+        private final Map<String, String> attributes;
+
+        public CheckSpec(String name, String type, String region, Map<String, String> attributes) {
+            this.name = name;
+            this.type = type;
+            this.region = region;
+            this.attributes = Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        /** Region name, or null for the whole screen. */
+        public String getRegion() {
+            return region;
+        }
+
+        public String get(String attribute) {
+            return attributes.get(attribute);
+        }
+
+        public String require(String attribute) {
+            String value = attributes.get(attribute);
+            if (value == null) {
+                throw new IllegalArgumentException("Check " + name + " needs attribute " + attribute);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.vision.screen;
+
+import com.vision.core.BaselineStore;
+import com.vision.core.Regions;
+import com.vision.core.VisionTimings;
+import com.vision.mobile.MobileVisionQuery;
+import com.vision.mobile.VisionOperations;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMREAD_COLOR;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imread;
+
+/**
+ * A {@link ScreenModel} compiled into an execution plan. Checks are grouped into tiers by cost
+ * (hash, colour, template, then OCR) and the first failing tier ends verification, so a wrong screen is
+ * usually rejected before any OCR is attempted. Checks of a tier are submitted to the executor together;
+ * as soon as one fails, the checks of that tier that have not started yet are skipped. Text checks only
+ * overlap when the {@link VisionOperations} allow it: {@link com.vision.mobile.MobileVisionQuery} borrows
+ * one of the JVM's shared OCR engines per read, so OCR checks on different pool threads run at the same
+ * time. Checks that run in parallel never write debug images, whose fixed file names concurrent checks
+ * would overwrite. Unless the caller passes an executor, checks run on a bounded pool the plan owns and
+ * shuts down in {@link #close()}, so blocking OCR never occupies the common fork-join pool.
+ * <pre>
+ * ScreenPlan plan = ScreenPlan.compile(ScreenModel.load(Paths.get("src/test/resources/screens/language_selection.properties")),
+ *     visionQuery);
+ * ScreenPlan.Verification result = plan.verify(visionQuery.getCurrentScreenAsMat());
+ * Assert.assertTrue(result.isPassed(), result.toString());
+ * </pre>
+ */
+@Slf4j
+public class ScreenPlan implements AutoCloseable {
+    private static final int DEFAULT_HASH_DISTANCE = 10;
+    private static final double DEFAULT_COLOR_TOLERANCE = 30;
+
+    private final ScreenModel model;
+    private final VisionOperations operations;
+    private final VisionOperations parallelOperations;
+    private final Executor executor;
+    private final boolean ownsExecutor;
+    private final List<List<ScreenCheck>> tiers;
+    private final List<Mat> templates;
+
+    private ScreenPlan(ScreenModel model, VisionOperations operations, Executor executor, boolean ownsExecutor,
+                       List<List<ScreenCheck>> tiers, List<Mat> templates) {
+        this.model = model;
+        this.operations = operations;
+        this.parallelOperations = operations instanceof MobileVisionQuery
+            ? ((MobileVisionQuery) operations).withoutDebugImages() : operations;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.tiers = tiers;
+        this.templates = templates;
+    }
+
+    /** Runs the checks of a tier on a pool of at most one thread per CPU, owned and closed by the plan. */
+    public static ScreenPlan compile(ScreenModel model, VisionOperations operations) throws IOException {
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), model.getChecks().size()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, planThreads());
+        try {
+            return compile(model, operations, null, pool, true);
+        } catch (IOException | RuntimeException e) {
+            pool.shutdown();
+            throw e;
+        }
+    }
+
+    /**
+     * @param baselines store used to resolve {@code baseline=} keys of hash checks; may be null
+     * @param executor  runs the checks of a tier; a pool of several threads lets them overlap. It stays
+     *                  with the caller and is not shut down by {@link #close()}
+     */
+    public static ScreenPlan compile(ScreenModel model, VisionOperations operations, BaselineStore baselines,
+                                     Executor executor) throws IOException {
+        return compile(model, operations, baselines, executor, false);
+    }
+
+    private static ScreenPlan compile(ScreenModel model, VisionOperations operations, BaselineStore baselines,
+                                      Executor executor, boolean ownsExecutor) throws IOException {
+        List<ScreenCheck> checks = new ArrayList<>();
+        List<Mat> templates = new ArrayList<>();
+        try {
+            for (ScreenModel.CheckSpec spec : model.getChecks()) {
+                checks.add(compileCheck(spec, baselines, templates));
+            }
+        } catch (IOException | RuntimeException e) {
+            templates.forEach(Mat::release);
+            throw e;
+        }
+
+        Map<Integer, List<ScreenCheck>> byCost = checks.stream()
+            .collect(Collectors.groupingBy(ScreenCheck::getCost, TreeMap::new, Collectors.toList()));
+        log.debug("Compiled screen {} into {} tiers: {}", model.getName(), byCost.size(), byCost.keySet());
+        return new ScreenPlan(model, operations, executor, ownsExecutor, new ArrayList<>(byCost.values()), templates);
+    }
+
+    private static ThreadFactory planThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "screen-plan-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static ScreenCheck compileCheck(ScreenModel.CheckSpec spec, BaselineStore baselines,
+                                            List<Mat> templates) throws IOException {
+        switch (spec.getType()) {
+            case "hash": {
+                long expected;
+                if (spec.get("hash") != null) {
+                    expected = Long.parseUnsignedLong(spec.get("hash"), 16);
+                } else {
+                    if (baselines == null) {
+                        throw new IllegalArgumentException("Check " + spec.getName() + " needs a BaselineStore");
+                    }
+                    expected = baselines.perceptualHash(spec.require("baseline"));
+                }
+                int maxDistance = spec.get("maxDistance") != null
+                    ? Integer.parseInt(spec.get("maxDistance")) : DEFAULT_HASH_DISTANCE;
+                return new ScreenCheck.Hash(spec.getName(), spec.getRegion(), expected, maxDistance);
+            }
+            case "color": {
+                String[] parts = spec.require("color").split(",");
+                double[] bgr = new double[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    bgr[i] = Double.parseDouble(parts[i].trim());
+                }
+                double tolerance = spec.get("tolerance") != null
+                    ? Double.parseDouble(spec.get("tolerance")) : DEFAULT_COLOR_TOLERANCE;
+                return new ScreenCheck.Color(spec.getName(), spec.getRegion(), bgr, tolerance);
+            }
+            case "template": {
+                String path = spec.require("template");
+                Mat template = imread(path, IMREAD_COLOR);
+                if (template.empty()) {
+                    throw new IOException("Failed to load template " + path + " for check " + spec.getName());
+                }
+                templates.add(template);
+                return new ScreenCheck.Template(spec.getName(), spec.getRegion(), template);
+            }
+            case "text":
+                return new ScreenCheck.Text(spec.getName(), spec.getRegion(),
+                    Arrays.asList(spec.require("expected").split("\\|")));
+            default:
+                throw new IllegalArgumentException("Unknown check type " + spec.getType() + " for " + spec.getName());
+        }
+    }
+
+    public ScreenModel getModel() {
+        return model;
+    }
+
+    /** Check names in execution order. */
+    public List<String> getOrder() {
+        return tiers.stream().flatMap(List::stream).map(ScreenCheck::getName).collect(Collectors.toList());
+    }
+
+    public Verification verify(Mat screen) {
+        Map<String, Rect> areas = resolveRegions(screen.cols(), screen.rows());
+        List<Outcome> outcomes = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        boolean passed = true;
+
+        for (List<ScreenCheck> tier : tiers) {
+            if (!passed) {
+                tier.forEach(check -> skipped.add(check.getName()));
+                continue;
+            }
+            List<Outcome> tierOutcomes = new ArrayList<>(tier.size());
+            if (tier.size() == 1) {
+                tierOutcomes.add(run(tier.get(0), screen, areas, operations));
+            } else {
+                // Completed by the first failing check; checks that start later see it and do not run
+                CompletableFuture<Outcome> firstFailure = new CompletableFuture<>();
+                List<CompletableFuture<Outcome>> futures = tier.stream()
+                    .map(check -> CompletableFuture.supplyAsync(VisionTimings.propagate(() -> {
+                        if (firstFailure.isDone()) {
+                            return null;
+                        }
+                        Outcome outcome = run(check, screen, areas, parallelOperations);
+                        if (!outcome.isPassed()) {
+                            firstFailure.complete(outcome);
+                        }
+                        return outcome;
+                    }), executor))
+                    .collect(Collectors.toList());
+                // Waits for checks already running as well, since they still read the screen
+                for (int i = 0; i < futures.size(); i++) {
+                    Outcome outcome = futures.get(i).join();
+                    if (outcome == null) {
+                        skipped.add(tier.get(i).getName());
+                    } else {
+                        tierOutcomes.add(outcome);
+                    }
+                }
+            }
+            outcomes.addAll(tierOutcomes);
+            passed = tierOutcomes.stream().allMatch(Outcome::isPassed);
+        }
+
+        Verification verification = new Verification(model.getName(), passed, outcomes, skipped);
+        log.debug("{}", verification);
+        return verification;
+    }
+
+    private Outcome run(ScreenCheck check, Mat screen, Map<String, Rect> areas, VisionOperations operations) {
+        long start = System.nanoTime();
+        Rect area = check.getRegion() == null ? new Rect(0, 0, screen.cols(), screen.rows()) : areas.get(check.getRegion());
+        String failure;
+        if (area == null) {
+            failure = "region " + check.getRegion() + " is outside the screen";
+        } else {
+            try {
+                failure = check.evaluate(screen, area, operations);
+            } catch (RuntimeException e) {
+                log.warn("Check {} of screen {} failed with an error", check.getName(), model.getName(), e);
+                failure = String.valueOf(e.getMessage());
+            }
+        }
+        return new Outcome(check.getName(), check.getCost(), failure, System.nanoTime() - start);
+    }
+
+    private Map<String, Rect> resolveRegions(int cols, int rows) {
+        Map<String, Rect> areas = new HashMap<>();
+        model.getRegions().forEach((name, f) -> {
+            Rect area = Regions.clip(new Rect(
+                (int) Math.round(f[0] * cols), (int) Math.round(f[1] * rows),
+                (int) Math.round(f[2] * cols), (int) Math.round(f[3] * rows)), cols, rows);
+            if (area != null) {
+                areas.put(name, area);
+            }
+        });
+        return areas;
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+        templates.forEach(Mat::release);
+    }
+
+    /** Result of a single check. */
+    public static class Outcome {
+        private final String name;
+        private final int cost;
+        private final String failure;
+        private final long elapsedNanos;
+
+        Outcome(String name, int cost, String failure, long elapsedNanos) {
+            this.name = name;
+            this.cost = cost;
+            this.failure = failure;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCost() {
+            return cost;
+        }
+
+        public boolean isPassed() {
+            return failure == null;
+        }
+
+        /** Failure description, or null when the check passed. */
+        public String getFailure() {
+            return failure;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    /** Result of verifying one screenshot against the plan. */
+    public static class Verification {
+        private final String screen;
+        private final boolean passed;
+        private final List<Outcome> outcomes;
+        private final List<String> skipped;
+
+        Verification(String screen, boolean passed, List<Outcome> outcomes, List<String> skipped) {
+            this.screen = screen;
+            this.passed = passed;
+            this.outcomes = Collections.unmodifiableList(outcomes);
+            this.skipped = Collections.unmodifiableList(skipped);
+        }
+
+        public boolean isPassed() {
+            return passed;
+        }
+
+        /** Outcomes of the checks that ran, in execution order. */
+        public List<Outcome> getOutcomes() {
+            return outcomes;
+        }
+
+        /** Checks not run because an earlier check failed, in this tier or an earlier one. */
+        public List<String> getSkipped() {
+            return skipped;
+        }
+
+        public Optional<Outcome> outcome(String check) {
+            return outcomes.stream().filter(o -> o.getName().equals(check)).findFirst();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Screen ").append(screen).append(passed ? " passed" : " failed");
+            for (Outcome outcome : outcomes) {
+                sb.append("\n  ").append(outcome.getName()).append(": ")
+                    .append(outcome.isPassed() ? "ok" : outcome.getFailure())
+                    .append(String.format(" (%.1f ms)", outcome.getElapsedNanos() / 1e6));
+            }
+            if (!skipped.isEmpty()) {
+                sb.append("\n  skipped: ").append(skipped);
+            }
+            return sb.toString();
+        }
+    }
+}
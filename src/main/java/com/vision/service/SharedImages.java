@@ -0,0 +1,83 @@
+package com.vision.service;
+
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.Pointer;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Passes raw pixel buffers between processes on the same host through memory-mapped files, so images are
+ * neither encoded nor copied through the HTTP connection. Files live in {@code /dev/shm} when it exists
+ * (RAM-backed on Linux) and in the system temp directory otherwise.
+ */
+final class SharedImages {
+    static final Path DIRECTORY = Files.isDirectory(Paths.get("/dev/shm"))
+        ? Paths.get("/dev/shm") : Paths.get(System.getProperty("java.io.tmpdir"));
+
+    private SharedImages() {
+    }
+
+    /** Copies the pixels of {@code image} into a new mapped file and returns its path. */
+    static Path write(Mat image) throws IOException {
+        Mat continuous = image.isContinuous() ? image : image.clone();
+        long size = continuous.total() * continuous.elemSize();
+        Path file = Files.createTempFile(DIRECTORY, "vision-", ".raw");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            Pointer.memcpy(new BytePointer(buffer), continuous.data(), size);
+        } finally {
+            if (continuous != image) {
+                continuous.release();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Maps {@code file} read-only and wraps it in a Mat without copying. The returned Mat is only valid while
+     * the returned mapping is reachable, so callers keep the {@link Mapped} instance until they are done.
+     */
+    static Mapped map(Path file, int rows, int cols, int type) throws IOException {
+        if (!DIRECTORY.toAbsolutePath().equals(file.toAbsolutePath().getParent()) || !file.getFileName().toString().startsWith("vision-")) {
+            throw new IOException("Refusing to map a file outside the shared image directory: " + file);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Mat mat = new Mat(rows, cols, type, new BytePointer(buffer));
+            if (mat.total() * mat.elemSize() > channel.size()) {
+                throw new IOException("Shared image " + file + " is smaller than " + cols + "x" + rows);
+            }
+            return new Mapped(buffer, mat);
+        }
+    }
+
+    static void delete(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    /** A Mat that points into a mapped file; holds the buffer so it is not unmapped while in use. */
+    static final class Mapped {
+        // Only referenced to keep the mapping alive
+        @SuppressWarnings("unused")
+        private final MappedByteBuffer buffer;
+        final Mat mat;
+
+        Mapped(MappedByteBuffer buffer, Mat mat) {
+            this.buffer = buffer;
+            this.mat = mat;
+        }
+    }
+}
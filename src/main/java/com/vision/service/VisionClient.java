@@ -0,0 +1,113 @@
+package com.vision.service;
+
+import com.vision.mobile.VisionOperations;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thin {@link VisionOperations} client for a {@link VisionServer} on the same host. Tests can swap a local
+ * {@code MobileVisionQuery} for this client without other changes.
+ * <p>
+ * With shared memory enabled (the default) image pixels are written to memory-mapped files and only their
+ * path and geometry travel over HTTP; otherwise the raw pixels are sent in the request body.
+ */
+public class VisionClient implements VisionOperations {
+    private final URI baseUri;
+    private final boolean sharedMemory;
+    private final HttpClient http = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+
+    public VisionClient() {
+        this(URI.create("http://127.0.0.1:" + VisionServer.DEFAULT_PORT), true);
+    }
+
+    public VisionClient(URI baseUri, boolean sharedMemory) {
+        this.baseUri = baseUri;
+        this.sharedMemory = sharedMemory;
+    }
+
+    public boolean isAvailable() {
+        try {
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(baseUri.resolve("/health")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public String performOCR(Mat image, Rect region) {
+        return post("/ocr", region, image, null);
+    }
+
+    @Override
+    public boolean findLogoInRegion(Mat image, Rect region, Mat template) {
+        return Boolean.parseBoolean(post("/logo", region, image, template));
+    }
+
+    private String post(String endpoint, Rect region, Mat image, Mat template) {
+        String query = "?x=" + region.x() + "&y=" + region.y() + "&w=" + region.width() + "&h=" + region.height();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(endpoint + query))
+            .timeout(Duration.ofMinutes(2));
+        List<Path> sharedFiles = new ArrayList<>();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try {
+            describe(builder, "Image", image, sharedFiles, body);
+            if (template != null) {
+                describe(builder, "Template", template, sharedFiles, body);
+            }
+            HttpResponse<String> response = http.send(
+                builder.POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray())).build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Vision service returned " + response.statusCode() + ": " + response.body());
+            }
+            return response.body();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the vision service", e);
+        } finally {
+            sharedFiles.forEach(SharedImages::delete);
+        }
+    }
+
+    private void describe(HttpRequest.Builder builder, String prefix, Mat image, List<Path> sharedFiles,
+                          ByteArrayOutputStream body) throws IOException {
+        builder.header("X-" + prefix + "-Rows", String.valueOf(image.rows()))
+            .header("X-" + prefix + "-Cols", String.valueOf(image.cols()))
+            .header("X-" + prefix + "-Type", String.valueOf(image.type()));
+        if (sharedMemory) {
+            Path file = SharedImages.write(image);
+            sharedFiles.add(file);
+            builder.header("X-" + prefix + "-Path", file.toAbsolutePath().toString());
+        } else {
+            Mat continuous = image.isContinuous() ? image : image.clone();
+            byte[] pixels = new byte[(int) (continuous.total() * continuous.elemSize())];
+            continuous.data().get(pixels);
+            body.write(pixels);
+            if (continuous != image) {
+                continuous.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.vision.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.vision.core.NativeRuntime;
+import com.vision.mobile.FrameSource;
+import com.vision.mobile.MobileVisionQuery;
+import com.vision.mobile.VisionOperations;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Hosts {@link VisionOperations} once per machine so several test JVMs share one set of OpenCV and
+ * Tesseract engines. Listens on the loopback interface only.
+ * <p>
+ * Endpoints: {@code POST /ocr?x=&y=&w=&h=}, {@code POST /logo?x=&y=&w=&h=} and {@code GET /health}.
+ * Images are described by {@code X-Image-*} (and {@code X-Template-*} for {@code /logo}) headers:
+ * {@code Rows}, {@code Cols}, {@code Type} and either {@code Path} (a memory-mapped file written by
+ * {@link VisionClient}) or no path, in which case the raw pixels follow in the request body.
+ * <p>
+ * Incoming requests are collected into batches (up to {@code maxBatch} requests or {@code maxDelayMillis},
+ * whichever comes first). A batch is grouped by operation and each group is split into at most one run per
+ * engine; a run is a single pool task that works through its requests back to back on one engine thread, so
+ * a burst costs a handful of task hand-offs instead of one per request and still spreads over all engines.
+ * A request that is not answered within {@link #REQUEST_TIMEOUT_MILLIS} gets a 504, and
+ * requests still queued or batched when the server closes get a 503.
+ * <pre>
+ * java -cp ... com.vision.service.VisionServer [port] [engines]
+ * </pre>
+ */
+@Slf4j
+public class VisionServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8765;
+    /** How long a handler waits for its answer; below {@link VisionClient}'s own request timeout. */
+    public static final long REQUEST_TIMEOUT_MILLIS = 60_000;
+
+    private final HttpServer server;
+    private final ExecutorService httpExecutor;
+    private final ExecutorService enginePool;
+    private final ThreadLocal<VisionOperations> engine;
+    private final BlockingQueue<PendingRequest> pending = new LinkedBlockingQueue<>();
+    private final Thread batcher;
+    private final int engines;
+    private final int maxBatch;
+    private final long maxDelayMillis;
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private volatile boolean running = true;
+
+    public VisionServer(int port, int engines) throws IOException {
+        this(port, engines, 16, 5, () -> new MobileVisionQuery((FrameSource) null));
+    }
+
+    /**
+     * @param engineFactory creates one engine per pool thread; engines are never shared between threads
+     */
+    public VisionServer(int port, int engines, int maxBatch, long maxDelayMillis,
+                        Callable<VisionOperations> engineFactory) throws IOException {
+        this.engines = engines;
+        this.maxBatch = maxBatch;
+        this.maxDelayMillis = maxDelayMillis;
+        this.engine = ThreadLocal.withInitial(() -> {
+            try {
+                return engineFactory.call();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to create vision engine", e);
+            }
+        });
+        this.enginePool = Executors.newFixedThreadPool(engines, daemonThreads("vision-engine"));
+        this.httpExecutor = Executors.newCachedThreadPool(daemonThreads("vision-http"));
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(httpExecutor);
+        server.createContext("/health", exchange -> respond(exchange, 200, "ok"));
+        server.createContext("/stats", exchange -> respond(exchange, 200,
+            "requests=" + requests.get() + "\nbatches=" + batches.get() + "\n"));
+        server.createContext("/ocr", exchange -> handle(exchange, "ocr", request -> {
+            Mat image = request.image("Image");
+            return engine.get().performOCR(image, request.region());
+        }));
+        server.createContext("/logo", exchange -> handle(exchange, "logo", request -> {
+            Mat image = request.image("Image");
+            Mat template = request.image("Template");
+            return String.valueOf(engine.get().findLogoInRegion(image, request.region(), template));
+        }));
+
+        batcher = new Thread(this::batchLoop, "vision-batcher");
+        batcher.setDaemon(true);
+    }
+
+    public VisionServer start() {
+        batcher.start();
+        server.start();
+        log.info("Vision service listening on {}", server.getAddress());
+        return this;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        batcher.interrupt();
+        try {
+            // The batcher fails the batch it is collecting on its way out
+            batcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failPending();
+        // Give handlers a moment to send their 503s; runs already in the pool still finish
+        server.stop(1);
+        enginePool.shutdown();
+        httpExecutor.shutdown();
+    }
+
+    private void handle(HttpExchange exchange, String operation, Function<ParsedRequest, String> work) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "POST required");
+            return;
+        }
+        ParsedRequest request;
+        try {
+            request = ParsedRequest.parse(exchange);
+        } catch (IOException | IllegalArgumentException e) {
+            respond(exchange, 400, e.getMessage());
+            return;
+        }
+
+        requests.incrementAndGet();
+        PendingRequest item = new PendingRequest(operation, () -> work.apply(request), request::release);
+        pending.add(item);
+        if (!running) {
+            item.fail(stopped());
+        }
+        try {
+            respond(exchange, 200, item.result.get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                respond(exchange, 503, e.getCause().getMessage());
+                return;
+            }
+            log.warn("{} request failed", operation, e.getCause());
+            respond(exchange, 500, String.valueOf(e.getCause().getMessage()));
+        } catch (TimeoutException e) {
+            item.fail(e);
+            log.warn("{} request timed out after {} ms", operation, REQUEST_TIMEOUT_MILLIS);
+            respond(exchange, 504, "Timed out after " + REQUEST_TIMEOUT_MILLIS + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            item.fail(e);
+            respond(exchange, 503, "Interrupted");
+        }
+    }
+
+    private void batchLoop() {
+        List<PendingRequest> batch = new ArrayList<>();
+        try {
+            while (running) {
+                batch.add(pending.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+                while (batch.size() < maxBatch) {
+                    PendingRequest next = pending.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(batch);
+                batches.incrementAndGet();
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // close() stops the batcher
+        } finally {
+            batch.forEach(request -> request.fail(stopped()));
+            failPending();
+        }
+    }
+
+    /** Hands a batch to the pool as one run per operation and engine, each worked through on a single thread. */
+    private void dispatch(List<PendingRequest> batch) {
+        Map<String, List<PendingRequest>> byOperation = new LinkedHashMap<>();
+        for (PendingRequest request : batch) {
+            byOperation.computeIfAbsent(request.operation, operation -> new ArrayList<>()).add(request);
+        }
+        for (List<PendingRequest> group : byOperation.values()) {
+            int runLength = (group.size() + engines - 1) / engines;
+            for (int from = 0; from < group.size(); from += runLength) {
+                List<PendingRequest> run = group.subList(from, Math.min(from + runLength, group.size()));
+                try {
+                    enginePool.execute(() -> run.forEach(PendingRequest::run));
+                } catch (RejectedExecutionException e) {
+                    run.forEach(request -> request.fail(stopped()));
+                }
+            }
+        }
+    }
+
+    private void failPending() {
+        PendingRequest request;
+        while ((request = pending.poll()) != null) {
+            request.fail(stopped());
+        }
+    }
+
+    private static RejectedExecutionException stopped() {
+        return new RejectedExecutionException("Vision service stopped");
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicLong counter = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int engines = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        NativeRuntime.get().warmUp("eng+hin");
+        VisionServer server = new VisionServer(port, engines).start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        Thread.currentThread().join();
+    }
+
+    /**
+     * One queued request. Whoever claims it first, an engine running it or a failure, settles it and releases
+     * its images, so an engine never works on images a timed-out handler has already released.
+     */
+    private static class PendingRequest {
+        private final String operation;
+        private final Callable<String> work;
+        private final Runnable release;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        PendingRequest(String operation, Callable<String> work, Runnable release) {
+            this.operation = operation;
+            this.work = work;
+            this.release = release;
+        }
+
+        void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                result.complete(work.call());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            } finally {
+                release.run();
+            }
+        }
+
+        /** Fails the request unless an engine has already started it, in which case that engine answers it. */
+        void fail(Throwable cause) {
+            if (claimed.compareAndSet(false, true)) {
+                result.completeExceptionally(cause);
+                release.run();
+            }
+        }
+    }
+
+    /** Query parameters and images of one request; mapped images stay valid until {@link #release()}. */
+    private static class ParsedRequest {
+        private final Map<String, String> params;
+        private final Map<String, Mat> images = new HashMap<>();
+        private final List<SharedImages.Mapped> mappings = new ArrayList<>();
+
+        private ParsedRequest(Map<String, String> params) {
+            this.params = params;
+        }
+
+        static ParsedRequest parse(HttpExchange exchange) throws IOException {
+            ParsedRequest request = new ParsedRequest(queryParams(exchange.getRequestURI().getRawQuery()));
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+            try {
+                request.readImages(exchange, body);
+            } catch (IOException | RuntimeException e) {
+                // Images mapped before the failure would otherwise stay mapped until garbage collection
+                request.release();
+                throw e;
+            }
+            return request;
+        }
+
+        private void readImages(HttpExchange exchange, byte[] body) throws IOException {
+            int offset = 0;
+            for (String prefix : new String[] {"Image", "Template"}) {
+                String rows = exchange.getRequestHeaders().getFirst("X-" + prefix + "-Rows");
+                if (rows == null) {
+                    continue;
+                }
+                int r = Integer.parseInt(rows);
+                int c = Integer.parseInt(exchange.getRequestHeaders().getFirst("X-" + prefix + "-Cols"));
+                int type = Integer.parseInt(exchange.getRequestHeaders().getFirst("X-" + prefix + "-Type"));
+                String path = exchange.getRequestHeaders().getFirst("X-" + prefix + "-Path");
+                if (path != null) {
+                    SharedImages.Mapped mapped = SharedImages.map(Paths.get(path), r, c, type);
+                    mappings.add(mapped);
+                    images.put(prefix, mapped.mat);
+                } else {
+                    Mat mat = new Mat(r, c, type);
+                    int size = (int) (mat.total() * mat.elemSize());
+                    images.put(prefix, mat);
+                    if (offset + size > body.length) {
+                        throw new IOException("Request body too short for " + prefix);
+                    }
+                    mat.data().put(body, offset, size);
+                    offset += size;
+                }
+            }
+        }
+
+        Mat image(String prefix) {
+            Mat mat = images.get(prefix);
+            if (mat == null) {
+                throw new IllegalArgumentException("Missing " + prefix + " headers");
+            }
+            return mat;
+        }
+
+        Rect region() {
+            return new Rect(Integer.parseInt(params.get("x")), Integer.parseInt(params.get("y")),
+                Integer.parseInt(params.get("w")), Integer.parseInt(params.get("h")));
+        }
+
+        void release() {
+            images.values().forEach(Mat::release);
+            mappings.clear();
+        }
+
+        private static Map<String, String> queryParams(String query) {
+            Map<String, String> params = new HashMap<>();
+            if (query == null) {
+                return params;
+            }
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    params.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+            return params;
+        }
+    }
+}
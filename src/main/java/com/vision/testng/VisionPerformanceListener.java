@@ -0,0 +1,245 @@
+package com.vision.testng;
+
+import com.vision.core.VisionTimings;
+import com.vision.core.VisionTimings.Stage;
+import lombok.extern.slf4j.Slf4j;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * TestNG listener that measures the vision time of every test method per stage (capture, decode,
+ * preprocess, match, OCR) using {@link VisionTimings}, appends it to a CSV history and checks it against
+ * budgets and the previous runs. Tests are identified by the fully qualified name of their class and the
+ * method name, so equally named classes in different packages keep separate histories. Register it in
+ * {@code testng.xml}:
+ * <pre>
+ * &lt;listeners&gt;
+ *     &lt;listener class-name="com.vision.testng.VisionPerformanceListener"/&gt;
+ * &lt;/listeners&gt;
+ * </pre>
+ * Settings are read from {@code config.properties} on the classpath; system properties override them:
+ * <ul>
+ *     <li>{@code vision.perf.history.path}: CSV history file, default {@code logs/vision-performance.csv}</li>
+ *     <li>{@code vision.perf.budget.ms}: vision time budget for every test, 0 for none</li>
+ *     <li>{@code vision.perf.budget.<fully.qualified.TestClass>.<method>.ms}: budget for one test; nested classes
+ *     use their binary name, e.g. {@code com.example.SuiteTest$Inner}</li>
+ *     <li>{@code vision.perf.regression.threshold}: allowed slowdown against the baseline as a fraction, default 0.25</li>
+ *     <li>{@code vision.perf.regression.min.ms}: slowdowns smaller than this are ignored as noise, default 100</li>
+ *     <li>{@code vision.perf.baseline.runs}: passed runs whose median forms the baseline, default 5</li>
+ *     <li>{@code vision.perf.action}: {@code warn} (default) to log violations, {@code fail} to fail the test</li>
+ * </ul>
+ * Methods with a {@code timeOut} or {@code invocationTimeOut} are not measured: TestNG runs their body on a
+ * separate thread, out of reach of the listener's thread-local scope, so they would be recorded as 0 ms.
+ */
+@Slf4j
+public class VisionPerformanceListener implements IInvokedMethodListener {
+    private static final String TIMINGS_ATTRIBUTE = VisionPerformanceListener.class.getName() + ".timings";
+    private static final String PREFIX = "vision.perf.";
+
+    private final Properties config;
+    private final Path historyFile;
+    private final Map<String, Deque<Double>> history = new HashMap<>();
+    private boolean historyLoaded;
+
+    public VisionPerformanceListener() {
+        this(loadConfig());
+    }
+
+    public VisionPerformanceListener(Properties config) {
+        this.config = config;
+        this.historyFile = Paths.get(setting("history.path", "logs/vision-performance.csv"));
+    }
+
+    private static Properties loadConfig() {
+        Properties config = new Properties();
+        try (InputStream in = VisionPerformanceListener.class.getClassLoader().getResourceAsStream("config.properties")) {
+            if (in != null) {
+                config.load(in);
+            }
+        } catch (IOException e) {
+            log.warn("Could not read config.properties: {}", e.getMessage());
+        }
+        return config;
+    }
+
+    private String setting(String key, String defaultValue) {
+        return System.getProperty(PREFIX + key, config.getProperty(PREFIX + key, defaultValue)).trim();
+    }
+
+    // Invocation listeners run on the test thread around the test method only (not its configuration
+    // methods), and before TestNG files the result, so a budget violation can still fail the test.
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult result) {
+        if (!method.isTestMethod()) {
+            return;
+        }
+        ITestNGMethod test = method.getTestMethod();
+        if (test.getTimeOut() > 0 || test.getInvocationTimeOut() > 0) {
+            // The body runs on TestNG's timeout thread and its vision time never reaches this thread's scope;
+            // without a scope finish() writes no row, rather than a 0 ms one that would skew the baseline
+            log.debug("Vision time of {} is not measured: it runs with a timeout on another thread", testName(result));
+            return;
+        }
+        result.setAttribute(TIMINGS_ATTRIBUTE, VisionTimings.start());
+    }
+
+    private static String testName(ITestResult result) {
+        return result.getTestClass().getRealClass().getName() + "." + result.getMethod().getMethodName();
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult result) {
+        if (!method.isTestMethod()) {
+            return;
+        }
+        switch (result.getStatus()) {
+            case ITestResult.SUCCESS:
+                finish(result, "PASS");
+                break;
+            case ITestResult.SKIP:
+                finish(result, "SKIP");
+                break;
+            default:
+                finish(result, "FAIL");
+                break;
+        }
+    }
+
+    private void finish(ITestResult result, String status) {
+        VisionTimings.Scope timings = (VisionTimings.Scope) result.getAttribute(TIMINGS_ATTRIBUTE);
+        if (timings == null) {
+            return;
+        }
+        timings.close();
+        result.removeAttribute(TIMINGS_ATTRIBUTE);
+
+        String test = testName(result);
+        double totalMillis = timings.getTotalNanos() / 1e6;
+        log.info("Vision time of {}: {}", test, timings);
+
+        List<String> violations = new ArrayList<>();
+        if ("PASS".equals(status)) {
+            checkBudget(test, totalMillis, violations);
+            checkRegression(test, totalMillis, violations);
+        }
+        append(test, status, timings);
+
+        if (violations.isEmpty()) {
+            return;
+        }
+        String message = "Vision performance of " + test + ": " + String.join("; ", violations);
+        if ("fail".equalsIgnoreCase(setting("action", "warn"))) {
+            result.setStatus(ITestResult.FAILURE);
+            result.setThrowable(new AssertionError(message));
+        } else {
+            log.warn(message);
+        }
+    }
+
+    private void checkBudget(String test, double totalMillis, List<String> violations) {
+        double budget = Double.parseDouble(setting("budget." + test + ".ms", setting("budget.ms", "0")));
+        if (budget > 0 && totalMillis > budget) {
+            violations.add(String.format("%.0f ms exceeds budget of %.0f ms", totalMillis, budget));
+        }
+    }
+
+    private synchronized void checkRegression(String test, double totalMillis, List<String> violations) {
+        loadHistory();
+        Deque<Double> previous = history.get(test);
+        if (previous == null || previous.isEmpty()) {
+            return;
+        }
+        double baseline = median(previous);
+        double threshold = Double.parseDouble(setting("regression.threshold", "0.25"));
+        double minimum = Double.parseDouble(setting("regression.min.ms", "100"));
+        if (baseline > 0 && totalMillis > baseline * (1 + threshold) && totalMillis - baseline >= minimum) {
+            violations.add(String.format("%.0f ms is %.0f%% slower than the baseline of %.0f ms (median of %d runs)",
+                totalMillis, (totalMillis / baseline - 1) * 100, baseline, previous.size()));
+        }
+    }
+
+    private static double median(Collection<Double> values) {
+        double[] sorted = values.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    private void loadHistory() {
+        if (historyLoaded) {
+            return;
+        }
+        historyLoaded = true;
+        if (!Files.exists(historyFile)) {
+            return;
+        }
+        try {
+            List<String> lines = Files.readAllLines(historyFile, StandardCharsets.UTF_8);
+            for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+                String[] fields = line.split(",");
+                if (fields.length >= 4 && "PASS".equals(fields[2])) {
+                    remember(fields[1], Double.parseDouble(fields[3]));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read vision performance history {}: {}", historyFile, e.getMessage());
+        }
+    }
+
+    private void remember(String test, double totalMillis) {
+        int runs = Integer.parseInt(setting("baseline.runs", "5"));
+        Deque<Double> values = history.computeIfAbsent(test, key -> new ArrayDeque<>());
+        values.addLast(totalMillis);
+        while (values.size() > runs) {
+            values.removeFirst();
+        }
+    }
+
+    private synchronized void append(String test, String status, VisionTimings.Scope timings) {
+        loadHistory();
+        double totalMillis = timings.getTotalNanos() / 1e6;
+        if ("PASS".equals(status)) {
+            remember(test, totalMillis);
+        }
+        StringBuilder row = new StringBuilder()
+            .append(Instant.now()).append(',')
+            .append(test).append(',')
+            .append(status).append(',')
+            .append(String.format(Locale.ROOT, "%.3f", totalMillis));
+        for (Stage stage : Stage.values()) {
+            row.append(',').append(String.format(Locale.ROOT, "%.3f", timings.getNanos(stage) / 1e6));
+        }
+        try {
+            if (historyFile.getParent() != null) {
+                Files.createDirectories(historyFile.getParent());
+            }
+            boolean newFile = !Files.exists(historyFile);
+            try (BufferedWriter writer = Files.newBufferedWriter(historyFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (newFile) {
+                    writer.write("timestamp,test,status,total_ms");
+                    for (Stage stage : Stage.values()) {
+                        writer.write("," + stage.name().toLowerCase(Locale.ROOT) + "_ms");
+                    }
+                    writer.newLine();
+                }
+                writer.write(row.toString());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            log.warn("Could not write vision performance history {}: {}", historyFile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.vision.test;
+
+import com.vision.mobile.AsyncMobileVisionQuery;
+import com.vision.mobile.CapturedFrame;
+import com.vision.mobile.FrameSource;
+import com.vision.mobile.MobileVisionQuery;
+import com.vision.mobile.OcrProfile;
+import org.bytedeco.opencv.opencv_core.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+
+public class AsyncMobileVisionQueryTest {
+
+    /** Frames whose blue channel is the frame index; {@code gate} holds back every frame after the first. */
+    private static class StubFrames implements FrameSource {
+        private final AtomicInteger served = new AtomicInteger();
+        private final CountDownLatch gate;
+        private volatile Mat last;
+
+        StubFrames(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public CapturedFrame next() {
+            int index = served.getAndIncrement();
+            if (index > 0) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            last = new Mat(32, 32, CV_8UC3, new Scalar(index, 0.0, 0.0, 0.0));
+            return new CapturedFrame(last, index, index * 1000L);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /** Answers OCR with the region's x coordinate; smaller x answers later, so completion order is reversed. */
+    private static class StubQuery extends MobileVisionQuery {
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+        volatile boolean debugImagesSeen;
+
+        StubQuery(FrameSource frames) {
+            super(frames);
+        }
+
+        @Override
+        public String performOCR(Mat image, Rect region, OcrProfile profile) {
+            threads.add(Thread.currentThread().getName());
+            debugImagesSeen |= profile.isDebugImages();
+            sleep(100 - region.x());
+            return String.valueOf(region.x());
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int blue(Mat screen) {
+        return screen.ptr(0, 0).get() & 0xff;
+    }
+
+    @Test
+    public void testReadRegionsKeepsRequestOrder() throws Exception {
+        StubQuery query = new StubQuery(new StubFrames(new CountDownLatch(0)));
+        Assert.assertTrue(query.getOcrProfile().isDebugImages());
+        Map<String, Rect> regions = new LinkedHashMap<>();
+        for (int x = 0; x < 80; x += 20) {
+            regions.put("region" + x, new Rect(x, 0, 10, 10));
+        }
+
+        try (AsyncMobileVisionQuery async = new AsyncMobileVisionQuery(query)) {
+            Map<String, String> texts = async.readRegionsAsync(new Mat(100, 100, CV_8UC3), regions).get(5, TimeUnit.SECONDS);
+            Assert.assertEquals(new ArrayList<>(texts.keySet()), new ArrayList<>(regions.keySet()));
+            Assert.assertEquals(new ArrayList<>(texts.values()), Arrays.asList("0", "20", "40", "60"));
+        }
+        Assert.assertFalse(query.debugImagesSeen, "Async calls must not write debug images");
+    }
+
+    @Test
+    public void testPollAnalysesScreensInCaptureOrder() throws Exception {
+        StubQuery query = new StubQuery(new StubFrames(new CountDownLatch(0)));
+        try (AsyncMobileVisionQuery async = new AsyncMobileVisionQuery(query)) {
+            List<Integer> indices = async.pollAsync(5, AsyncMobileVisionQueryTest::blue).get(5, TimeUnit.SECONDS);
+            Assert.assertEquals(indices, Arrays.asList(0, 1, 2, 3, 4));
+        }
+    }
+
+    @Test
+    public void testFrameSourceScreensSkipEncoding() throws Exception {
+        StubFrames frames = new StubFrames(new CountDownLatch(0));
+        try (AsyncMobileVisionQuery async = new AsyncMobileVisionQuery(new StubQuery(frames))) {
+            Mat screen = async.screenAsync().get(5, TimeUnit.SECONDS);
+            Assert.assertSame(screen, frames.last, "Frame source Mats must not be re-encoded and decoded");
+        }
+    }
+
+    @Test
+    public void testCancelledPollStopsCapturing() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        StubFrames frames = new StubFrames(gate);
+        try (AsyncMobileVisionQuery async = new AsyncMobileVisionQuery(new StubQuery(frames))) {
+            CompletableFuture<List<Integer>> poll = async.pollAsync(4, AsyncMobileVisionQueryTest::blue);
+            Assert.assertThrows(TimeoutException.class, () -> poll.get(200, TimeUnit.MILLISECONDS));
+
+            Assert.assertTrue(poll.cancel(true));
+            gate.countDown();
+            sleep(300);
+            // The second capture was already waiting at the gate; the third and fourth never start
+            Assert.assertEquals(frames.served.get(), 2);
+        }
+    }
+
+    @Test
+    public void testSaturatedPoolMakesSubmittersWait() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        MobileVisionQuery query = new MobileVisionQuery((FrameSource) null) {
+            @Override
+            public String performOCR(Mat image, Rect region, OcrProfile profile) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Thread.currentThread().getName();
+            }
+        };
+        int threads = 2;
+        ExecutorService io = Executors.newCachedThreadPool();
+        ExecutorService compute = AsyncMobileVisionQuery.newComputeExecutor(threads);
+        try (AsyncMobileVisionQuery async = new AsyncMobileVisionQuery(query, io, compute)) {
+            Mat screen = new Mat(10, 10, CV_8UC3);
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            // Two running tasks and a full queue of 64; the next submitter has to wait for room
+            for (int i = 0; i < threads + 64; i++) {
+                futures.add(async.performOCRAsync(screen, new Rect(0, 0, 5, 5)));
+            }
+            CompletableFuture<CompletableFuture<String>> overflow = CompletableFuture.supplyAsync(
+                () -> async.performOCRAsync(screen, new Rect(0, 0, 5, 5)), io);
+            Assert.assertThrows(TimeoutException.class, () -> overflow.get(200, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            futures.add(overflow.get(5, TimeUnit.SECONDS));
+            for (CompletableFuture<String> future : futures) {
+                Assert.assertTrue(future.get(5, TimeUnit.SECONDS).startsWith("vision-compute-"),
+                    "Compute work must stay on the compute pool");
+            }
+        } finally {
+            release.countDown();
+            compute.shutdownNow();
+            io.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSaturatedPoolRejectsItsOwnThreads() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService compute = AsyncMobileVisionQuery.newComputeExecutor(1);
+        try {
+            // The only worker fills the queue and then submits once more; it cannot wait for itself
+            Future<?> nested = compute.submit(() -> {
+                for (int i = 0; i < 64; i++) {
+                    compute.execute(() -> {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+                }
+                compute.execute(() -> { });
+            });
+            ExecutionException failure = Assert.expectThrows(ExecutionException.class,
+                () -> nested.get(5, TimeUnit.SECONDS));
+            Assert.assertTrue(failure.getCause() instanceof RejectedExecutionException, String.valueOf(failure.getCause()));
+        } finally {
+            release.countDown();
+            compute.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCloseRejectsNewWorkAndLeavesCallerExecutors() {
+        MobileVisionQuery query = new StubQuery(new StubFrames(new CountDownLatch(0)));
+        AsyncMobileVisionQuery owned = new AsyncMobileVisionQuery(query);
+        owned.close();
+        Assert.assertThrows(RejectedExecutionException.class,
+            () -> owned.performOCRAsync(new Mat(10, 10, CV_8UC3), new Rect(0, 0, 5, 5)));
+        Assert.assertThrows(RejectedExecutionException.class, owned::captureAsync);
+
+        ExecutorService io = Executors.newSingleThreadExecutor();
+        ExecutorService compute = Executors.newSingleThreadExecutor();
+        new AsyncMobileVisionQuery(query, io, compute).close();
+        Assert.assertFalse(io.isShutdown());
+        Assert.assertFalse(compute.isShutdown());
+        io.shutdown();
+        compute.shutdown();
+    }
+}
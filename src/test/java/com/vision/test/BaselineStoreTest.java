@@ -0,0 +1,111 @@
+package com.vision.test;
+
+import com.vision.core.BaselineStore;
+import com.vision.core.ComparisonOptions;
+import com.vision.core.ComparisonResult;
+import org.apache.commons.io.FileUtils;
+import org.bytedeco.opencv.opencv_core.*;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+
+public class BaselineStoreTest {
+    private Path storeDir;
+    private BaselineStore store;
+
+    @BeforeClass
+    public void setup() throws IOException {
+        storeDir = Files.createTempDirectory("baselines");
+        store = new BaselineStore(storeDir);
+    }
+
+    private Mat screen() {
+        Mat image = new Mat(320, 240, CV_8UC3, new Scalar(255.0, 255.0, 255.0, 0.0));
+        new Mat(image, new Rect(40, 40, 160, 60)).put(new Scalar(200.0, 80.0, 20.0, 0.0));
+        return image;
+    }
+
+    @Test
+    public void testExactMatchUsesStoredHash() throws IOException {
+        store.save("emulator/home", screen());
+
+        ComparisonResult result = store.compare("emulator/home", screen(), new ComparisonOptions());
+
+        Assert.assertTrue(result.isIdentical());
+        Assert.assertTrue(store.matchesPerceptually("emulator/home", screen(), 0));
+    }
+
+    @Test
+    public void testChangedScreenRunsFullDiff() throws IOException {
+        store.save("emulator/score", screen());
+        Mat actual = screen();
+        new Mat(actual, new Rect(10, 200, 20, 20)).put(new Scalar(0.0, 0.0, 0.0, 0.0));
+
+        ComparisonResult result = store.compare("emulator/score", actual, new ComparisonOptions());
+
+        Assert.assertEquals(result.getDiffPixels(), 400);
+        Assert.assertEquals(result.getDiffRegions().size(), 1);
+    }
+
+    @Test
+    public void testSaveReplacesBaseline() throws IOException {
+        store.save("emulator/replace", screen());
+        Mat updated = new Mat(320, 240, CV_8UC3, new Scalar(0.0, 0.0, 0.0, 0.0));
+        store.save("emulator/replace", updated);
+
+        Assert.assertTrue(store.compare("emulator/replace", updated, new ComparisonOptions()).isIdentical());
+        Assert.assertEquals(store.loadThumbnail("emulator/replace").cols(), 96);
+    }
+
+    @Test
+    public void testConcurrentSavesKeepPublishedImages() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> saves = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                double blue = i * 30.0;
+                saves.add(pool.submit(() -> {
+                    store.save("emulator/race", new Mat(32, 32, CV_8UC3, new Scalar(blue, 0.0, 0.0, 0.0)));
+                    return null;
+                }));
+            }
+            for (Future<?> save : saves) {
+                save.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        // Whichever save published last, its image is still there
+        Assert.assertFalse(store.loadBaseline("emulator/race").empty());
+    }
+
+    @Test
+    public void testKeysCannotLeaveTheStore() {
+        for (String key : new String[] {"../../etc", "emulator/..", "./home", "emulator/.../x"}) {
+            Assert.assertThrows(IllegalArgumentException.class, () -> store.hasBaseline(key));
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testMissingBaseline() throws IOException {
+        store.compare("emulator/missing", screen(), new ComparisonOptions());
+    }
+
+    @AfterClass
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(storeDir.toFile());
+    }
+}
@@ -0,0 +1,65 @@
+package com.vision.test;
+
+import com.vision.mobile.DescriptorIndex;
+import com.vision.mobile.FeatureLogoDetector;
+import com.vision.mobile.LogoMatch;
+import org.bytedeco.opencv.opencv_core.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+public class FeatureLogoDetectorTest {
+
+    private Mat texturedLogo() {
+        Mat logo = new Mat(120, 160, CV_8UC3, new Scalar(255.0, 255.0, 255.0, 0.0));
+        Random random = new Random(42);
+        for (int i = 0; i < 40; i++) {
+            Point p1 = new Point(random.nextInt(150), random.nextInt(110));
+            Point p2 = new Point(p1.x() + 5 + random.nextInt(30), p1.y() + 5 + random.nextInt(30));
+            rectangle(logo, p1, p2, new Scalar(random.nextInt(200), random.nextInt(200), random.nextInt(200), 0), -1, LINE_8, 0);
+        }
+        return logo;
+    }
+
+    @Test
+    public void testLocatesScaledLogo() throws Exception {
+        Mat logo = texturedLogo();
+        DescriptorIndex index = new DescriptorIndex();
+        index.add("logo", logo);
+
+        // Round-trip through the on-disk index
+        Path file = Files.createTempFile("descriptors", ".idx");
+        index.save(file);
+        DescriptorIndex loaded = DescriptorIndex.load(file);
+        Files.delete(file);
+
+        Mat screen = new Mat(800, 600, CV_8UC3, new Scalar(255.0, 255.0, 255.0, 0.0));
+        Mat scaled = new Mat();
+        resize(logo, scaled, new Size(240, 180));
+        scaled.copyTo(new Mat(screen, new Rect(200, 300, 240, 180)));
+
+        LogoMatch match = new FeatureLogoDetector(loaded).locate(screen, new Rect(0, 200, 600, 400), "logo");
+
+        Assert.assertTrue(match.isFound(), "Logo should be found: " + match);
+        Point2f topLeft = match.getQuad()[0];
+        Assert.assertEquals(topLeft.x(), 200f, 6f);
+        Assert.assertEquals(topLeft.y(), 300f, 6f);
+    }
+
+    @Test
+    public void testMissingLogo() {
+        DescriptorIndex index = new DescriptorIndex();
+        index.add("logo", texturedLogo());
+        Mat blank = new Mat(800, 600, CV_8UC3, new Scalar(255.0, 255.0, 255.0, 0.0));
+
+        LogoMatch match = new FeatureLogoDetector(index).locate(blank, new Rect(0, 0, 600, 800), "logo");
+
+        Assert.assertFalse(match.isFound());
+    }
+}
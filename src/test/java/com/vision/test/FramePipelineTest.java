@@ -0,0 +1,132 @@
+package com.vision.test;
+
+import com.vision.mobile.CapturedFrame;
+import com.vision.mobile.FramePipeline;
+import com.vision.mobile.FrameSource;
+import com.vision.mobile.VideoFrameSource;
+import org.bytedeco.ffmpeg.global.avcodec;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.opencv_core.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+
+public class FramePipelineTest {
+
+    private List<Mat> frames(int count) {
+        List<Mat> frames = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            frames.add(new Mat(120, 160, CV_8UC3, new Scalar(i * 10.0, i * 10.0, i * 10.0, 0.0)));
+        }
+        return frames;
+    }
+
+    @Test
+    public void testBlockingPipelineProcessesEveryFrame() throws Exception {
+        ConcurrentLinkedQueue<Long> timestamps = new ConcurrentLinkedQueue<>();
+        FramePipeline pipeline = new FramePipeline(FrameSource.fromIterator(frames(20).iterator(), 33_333), 4, 2,
+                FramePipeline.DropPolicy.BLOCK)
+            .addStage("brightness", frame -> mean(frame.getImage()).get(0))
+            .onResult(result -> timestamps.add(result.getTimestampMicros()));
+
+        FramePipeline.Stats stats = pipeline.run();
+
+        Assert.assertEquals(stats.getFramesRead(), 20);
+        Assert.assertEquals(stats.getFramesProcessed(), 20);
+        Assert.assertEquals(stats.getFramesDropped(), 0);
+        Assert.assertTrue(timestamps.contains(19 * 33_333L));
+    }
+
+    @Test
+    public void testSlowStageDropsFrames() throws Exception {
+        FramePipeline pipeline = new FramePipeline(FrameSource.fromIterator(frames(20).iterator(), 33_333), 1, 1,
+                FramePipeline.DropPolicy.DROP_OLDEST)
+            .addStage("slow", frame -> {
+                Thread.sleep(20);
+                return frame.getIndex();
+            });
+
+        FramePipeline.Stats stats = pipeline.run();
+
+        Assert.assertTrue(stats.getFramesDropped() > 0, "Expected frames to be dropped under load");
+        Assert.assertEquals(stats.getFramesProcessed() + stats.getFramesDropped(), 20);
+    }
+
+    @Test(timeOut = 10_000)
+    public void testDeadWorkersDoNotHangTheReader() throws Exception {
+        FramePipeline pipeline = new FramePipeline(FrameSource.fromIterator(frames(10).iterator(), 33_333), 1, 1,
+                FramePipeline.DropPolicy.BLOCK)
+            .addStage("crash", frame -> {
+                throw new LinkageError("simulated native failure");
+            });
+
+        FramePipeline.Stats stats = pipeline.run();
+
+        Assert.assertEquals(stats.getFramesProcessed(), 0);
+        Assert.assertTrue(stats.getFramesRead() < 10, "Reading should stop once no worker is left");
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testPipelineRunsOnce() throws Exception {
+        FramePipeline pipeline = new FramePipeline(FrameSource.fromIterator(frames(2).iterator(), 33_333), 2, 1,
+            FramePipeline.DropPolicy.BLOCK);
+        Assert.assertEquals(pipeline.run().getFramesProcessed(), 2);
+        pipeline.run();
+    }
+
+    @Test
+    public void testCloseFailureDoesNotHideReadFailure() throws Exception {
+        FrameSource failing = new FrameSource() {
+            @Override
+            public CapturedFrame next() throws IOException {
+                throw new IOException("read failed");
+            }
+
+            @Override
+            public void close() throws IOException {
+                throw new IOException("close failed");
+            }
+        };
+        FramePipeline pipeline = new FramePipeline(failing, 2, 2, FramePipeline.DropPolicy.BLOCK)
+            .addStage("brightness", frame -> mean(frame.getImage()).get(0));
+
+        IOException failure = Assert.expectThrows(IOException.class, pipeline::run);
+        Assert.assertEquals(failure.getMessage(), "read failed");
+        Assert.assertEquals(failure.getSuppressed().length, 1);
+        Assert.assertEquals(failure.getSuppressed()[0].getMessage(), "close failed");
+    }
+
+    @Test
+    public void testRecordedVideo() throws Exception {
+        File video = File.createTempFile("screen-record", ".mp4");
+        OpenCVFrameConverter.ToMat converter = new OpenCVFrameConverter.ToMat();
+        try (FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(video, 160, 120)) {
+            recorder.setFormat("mp4");
+            recorder.setVideoCodec(avcodec.AV_CODEC_ID_MPEG4);
+            recorder.setFrameRate(10);
+            recorder.start();
+            for (Mat frame : frames(10)) {
+                recorder.record(converter.convert(frame));
+            }
+        }
+
+        ConcurrentLinkedQueue<Integer> widths = new ConcurrentLinkedQueue<>();
+        FramePipeline.Stats stats = new FramePipeline(new VideoFrameSource(video), 4, 2, FramePipeline.DropPolicy.BLOCK)
+            .addStage("width", frame -> frame.getImage().cols())
+            .onResult(result -> widths.add(result.get("width")))
+            .run();
+
+        Assert.assertEquals(stats.getFramesProcessed(), 10);
+        Assert.assertEquals(widths.size(), 10);
+        Assert.assertTrue(widths.stream().allMatch(width -> width == 160));
+        video.delete();
+    }
+}
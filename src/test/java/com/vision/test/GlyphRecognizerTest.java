@@ -0,0 +1,62 @@
+package com.vision.test;
+
+import com.vision.mobile.GlyphReading;
+import com.vision.mobile.GlyphRecognizer;
+import org.bytedeco.opencv.opencv_core.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+public class GlyphRecognizerTest {
+
+    /** Dark text on a light background, as the app renders scores and timers. */
+    private Mat render(String text, int width) {
+        Mat image = new Mat(60, width, CV_8UC3, new Scalar(245.0, 245.0, 245.0, 0.0));
+        putText(image, text, new Point(10, 42), FONT_HERSHEY_SIMPLEX, 1.0,
+            new Scalar(30.0, 30.0, 30.0, 0.0), 2, LINE_AA, false);
+        return image;
+    }
+
+    private GlyphRecognizer digits() {
+        GlyphRecognizer recognizer = new GlyphRecognizer();
+        recognizer.learn(render("0 1 2 3 4 5 6 7 8 9", 480), "0123456789");
+        return recognizer;
+    }
+
+    @Test
+    public void testReadsDigitsInRegion() throws Exception {
+        // Round-trip through the on-disk templates
+        Path file = Files.createTempFile("glyphs", ".bin");
+        digits().save(file);
+        GlyphRecognizer recognizer = GlyphRecognizer.load(file);
+        Files.delete(file);
+
+        Mat screen = new Mat(200, 300, CV_8UC3, new Scalar(245.0, 245.0, 245.0, 0.0));
+        render("4096", 120).copyTo(new Mat(screen, new Rect(100, 80, 120, 60)));
+
+        GlyphReading reading = recognizer.recognize(screen, new Rect(100, 80, 120, 60));
+
+        Assert.assertEquals(reading.getText(), "4096", reading.toString());
+        Assert.assertTrue(reading.isConfident(0.9), reading.toString());
+    }
+
+    @Test
+    public void testEmptyRegionIsNotConfident() {
+        Mat blank = new Mat(60, 120, CV_8UC3, new Scalar(245.0, 245.0, 245.0, 0.0));
+
+        GlyphReading reading = digits().recognize(blank);
+
+        Assert.assertEquals(reading.getText(), "");
+        Assert.assertFalse(reading.isConfident(0.5));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testLabelMustMatchGlyphCount() {
+        new GlyphRecognizer().learn(render("123", 120), "12");
+    }
+}
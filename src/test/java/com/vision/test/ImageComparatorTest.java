@@ -0,0 +1,138 @@
+package com.vision.test;
+
+import com.vision.core.ComparisonOptions;
+import com.vision.core.ComparisonResult;
+import com.vision.core.ImageComparator;
+import com.vision.core.Regions;
+import org.bytedeco.opencv.opencv_core.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+
+public class ImageComparatorTest {
+    private final ImageComparator comparator = new ImageComparator();
+
+    private Mat blankScreen() {
+        return new Mat(400, 300, CV_8UC3, new Scalar(255.0, 255.0, 255.0, 0.0));
+    }
+
+    @Test
+    public void testIdenticalImages() {
+        Mat image = blankScreen();
+        ComparisonResult result = comparator.compare(image, image.clone(), new ComparisonOptions());
+
+        Assert.assertTrue(result.isIdentical());
+        Assert.assertEquals(result.getSimilarity(), 1.0, 1e-9);
+    }
+
+    @Test
+    public void testChangedRegionIsReportedAcrossTiles() {
+        Mat baseline = blankScreen();
+        Mat actual = baseline.clone();
+        // Straddles the 64px tile boundary in both directions
+        new Mat(actual, new Rect(50, 50, 30, 30)).put(new Scalar(0.0, 0.0, 0.0, 0.0));
+
+        ComparisonResult result = comparator.compare(baseline, actual, new ComparisonOptions().setTileSize(64));
+
+        Assert.assertEquals(result.getDiffPixels(), 900);
+        Assert.assertEquals(result.getDiffRegions().size(), 1, "Tile-split region should be merged");
+        Rect region = result.getDiffRegions().get(0);
+        Assert.assertEquals(region.x(), 50);
+        Assert.assertEquals(region.y(), 50);
+        Assert.assertEquals(region.width(), 30);
+        Assert.assertEquals(region.height(), 30);
+    }
+
+    @Test
+    public void testMinRegionAreaAppliesAfterTilesAreMerged() {
+        Mat baseline = blankScreen();
+        Mat actual = baseline.clone();
+        // A 20x20 change centred on a tile corner: four 10x10 fragments, each below the minimum area
+        new Mat(actual, new Rect(54, 54, 20, 20)).put(new Scalar(0.0, 0.0, 0.0, 0.0));
+        ComparisonOptions options = new ComparisonOptions().setMinRegionArea(200);
+
+        for (int tileSize : new int[] {64, 256}) {
+            ComparisonResult result = comparator.compare(baseline, actual, options.setTileSize(tileSize));
+            Assert.assertEquals(result.getDiffRegions().size(), 1, "tile size " + tileSize);
+            Assert.assertEquals(result.getDiffRegions().get(0).area(), 400, "tile size " + tileSize);
+        }
+    }
+
+    @Test
+    public void testIgnoreRegionMasksChanges() {
+        Mat baseline = blankScreen();
+        Mat actual = baseline.clone();
+        new Mat(actual, new Rect(0, 0, 300, 20)).put(new Scalar(0.0, 0.0, 0.0, 0.0));
+
+        ComparisonResult result = comparator.compare(baseline, actual,
+            new ComparisonOptions().addIgnoreRegion(new Rect(0, 0, 300, 20)));
+
+        Assert.assertTrue(result.isIdentical());
+    }
+
+    @Test
+    public void testBudgetStopsEarly() {
+        Mat baseline = blankScreen();
+        Mat actual = new Mat(400, 300, CV_8UC3, new Scalar(0.0, 0.0, 0.0, 0.0));
+
+        ComparisonResult result = comparator.compare(baseline, actual,
+            new ComparisonOptions().setTileSize(32).setMaxDiffRatio(0.01));
+
+        Assert.assertTrue(result.isBudgetExceeded());
+        Assert.assertTrue(result.getDiffPixels() < result.getComparedPixels());
+        // Every examined pixel changed, so the similarity of what was looked at is 0
+        Assert.assertTrue(result.getExaminedPixels() < result.getComparedPixels());
+        Assert.assertEquals(result.getSimilarity(), 0.0, 1e-9);
+    }
+
+    @Test
+    public void testSsimHonoursBudget() {
+        Mat baseline = blankScreen();
+        Mat actual = baseline.clone();
+        new Mat(actual, new Rect(100, 100, 80, 80)).put(new Scalar(0.0, 0.0, 0.0, 0.0));
+
+        ComparisonOptions options = new ComparisonOptions().setSsim(true);
+        Assert.assertFalse(comparator.compare(baseline, actual, options).isBudgetExceeded());
+        Assert.assertTrue(comparator.compare(baseline, actual, options.setMaxDiffRatio(0.01)).isBudgetExceeded());
+    }
+
+    @Test
+    public void testMergeJoinsChainsAndGrownUnions() {
+        List<Rect> regions = new ArrayList<>();
+        // A diagonal chain of touching squares, listed out of x order
+        for (int i = 9; i >= 0; i--) {
+            regions.add(new Rect(i * 10, i * 10, 10, 10));
+        }
+        // Near neither end square, but near the union of the chain
+        regions.add(new Rect(0, 95, 5, 5));
+        regions.add(new Rect(500, 500, 10, 10));
+
+        List<Rect> merged = Regions.merge(regions, 2);
+
+        Assert.assertEquals(merged.size(), 2, merged.toString());
+        Rect chain = merged.get(0);
+        Assert.assertEquals(chain.x(), 0);
+        Assert.assertEquals(chain.y(), 0);
+        Assert.assertEquals(chain.width(), 100);
+        Assert.assertEquals(chain.height(), 100);
+        Assert.assertEquals(merged.get(1).x(), 500);
+    }
+
+    @Test
+    public void testSsimMode() {
+        Mat baseline = blankScreen();
+        Mat actual = baseline.clone();
+        new Mat(actual, new Rect(100, 100, 80, 80)).put(new Scalar(0.0, 0.0, 0.0, 0.0));
+
+        ComparisonResult same = comparator.compare(baseline, baseline.clone(), new ComparisonOptions().setSsim(true));
+        ComparisonResult changed = comparator.compare(baseline, actual, new ComparisonOptions().setSsim(true));
+
+        Assert.assertEquals(same.getSimilarity(), 1.0, 1e-6);
+        Assert.assertTrue(changed.getSimilarity() < 1.0);
+        Assert.assertFalse(changed.getDiffRegions().isEmpty());
+    }
+}
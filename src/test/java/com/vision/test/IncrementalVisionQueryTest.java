@@ -0,0 +1,68 @@
+package com.vision.test;
+
+import com.vision.mobile.IncrementalVisionQuery;
+import com.vision.mobile.MobileVisionQuery;
+import io.appium.java_client.AppiumDriver;
+import org.bytedeco.opencv.opencv_core.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+
+public class IncrementalVisionQueryTest {
+
+    @Test
+    public void testOnlyTouchedRegionsAreReevaluated() {
+        IncrementalVisionQuery incremental = new IncrementalVisionQuery(new MobileVisionQuery((AppiumDriver) null));
+        AtomicInteger headerRuns = new AtomicInteger();
+        AtomicInteger scoreRuns = new AtomicInteger();
+        incremental.watch("header", new Rect(0, 0, 300, 50), 0, (frame, region) -> headerRuns.incrementAndGet());
+        incremental.watch("score", new Rect(100, 300, 100, 40), 0, (frame, region) -> scoreRuns.incrementAndGet());
+
+        Mat frame = new Mat(400, 300, CV_8UC3, new Scalar(255.0, 255.0, 255.0, 0.0));
+        incremental.analyze(frame);
+        Assert.assertEquals(headerRuns.get(), 1);
+        Assert.assertEquals(scoreRuns.get(), 1);
+
+        // Unchanged frame: both results are reused
+        IncrementalVisionQuery.FrameAnalysis unchanged = incremental.analyze(frame.clone());
+        Assert.assertTrue(unchanged.getDirtyRegions().isEmpty());
+        Assert.assertTrue(unchanged.getRefreshed().isEmpty());
+
+        // Only the score changes
+        Mat next = frame.clone();
+        new Mat(next, new Rect(120, 310, 20, 20)).put(new Scalar(0.0, 0.0, 0.0, 0.0));
+        IncrementalVisionQuery.FrameAnalysis analysis = incremental.analyze(next);
+
+        Assert.assertTrue(analysis.isRefreshed("score"));
+        Assert.assertFalse(analysis.isRefreshed("header"));
+        Assert.assertEquals(headerRuns.get(), 1);
+        Assert.assertEquals(scoreRuns.get(), 2);
+        Assert.assertEquals((int) incremental.<Integer>result("score"), 2);
+    }
+
+    @Test
+    public void testGradualChangeIsCaughtAgainstLastEvaluation() {
+        IncrementalVisionQuery incremental = new IncrementalVisionQuery(new MobileVisionQuery((AppiumDriver) null));
+        AtomicInteger runs = new AtomicInteger();
+        incremental.watch("timer", new Rect(50, 50, 40, 20), 0, (frame, region) -> runs.incrementAndGet());
+
+        Mat frame = new Mat(200, 200, CV_8UC3, new Scalar(200.0, 200.0, 200.0, 0.0));
+        incremental.analyze(frame);
+        Assert.assertEquals(runs.get(), 1);
+
+        // Each step darkens the region by 20, below the pixel threshold of 30 between consecutive frames
+        Mat step1 = frame.clone();
+        new Mat(step1, new Rect(50, 50, 40, 20)).put(new Scalar(180.0, 180.0, 180.0, 0.0));
+        Assert.assertFalse(incremental.analyze(step1).isRefreshed("timer"));
+
+        Mat step2 = frame.clone();
+        new Mat(step2, new Rect(50, 50, 40, 20)).put(new Scalar(160.0, 160.0, 160.0, 0.0));
+        IncrementalVisionQuery.FrameAnalysis analysis = incremental.analyze(step2);
+        Assert.assertTrue(analysis.isRefreshed("timer"));
+        Assert.assertFalse(analysis.getDirtyRegions().isEmpty());
+        Assert.assertEquals(runs.get(), 2);
+    }
+}
@@ -1,6 +1,8 @@
 package com.vision.test;
 
 import com.vision.mobile.MobileVisionQuery;
+import com.vision.screen.ScreenModel;
+import com.vision.screen.ScreenPlan;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.android.options.UiAutomator2Options;
@@ -12,6 +14,7 @@ import org.testng.Assert;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.Properties;
 
@@ -47,6 +50,7 @@ public class MobileVisionTest {
         
         // Initialize vision query
         visionQuery = new MobileVisionQuery(driver);
+        visionQuery.warmUp();
     }
 
     @Test
@@ -179,6 +183,22 @@ public class MobileVisionTest {
         logoTemplate.release();
     }
 
+    @Test
+    public void testLanguageSelectionScreenModel() throws IOException {
+        ScreenModel model = ScreenModel.load(Paths.get("src/test/resources/screens/language_selection.properties"));
+        try (ScreenPlan plan = ScreenPlan.compile(model, visionQuery)) {
+            Mat screenshot = visionQuery.getCurrentScreenAsMat();
+            try {
+                ScreenPlan.Verification result = plan.verify(screenshot);
+                Assert.assertTrue(result.isPassed(), result.toString());
+                Assert.assertTrue(result.getSkipped().isEmpty(), result.toString());
+                Assert.assertEquals(result.getOutcomes().size(), plan.getOrder().size(), result.toString());
+            } finally {
+                screenshot.release();
+            }
+        }
+    }
+
     @AfterClass
     public void tearDown() {
         if (driver != null) {
@@ -0,0 +1,61 @@
+package com.vision.test;
+
+import com.vision.mobile.OcrProfile;
+import com.vision.mobile.OcrTuner;
+import org.bytedeco.opencv.opencv_core.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC3;
+
+public class OcrTunerTest {
+
+    /** Reads correctly only from 3x upscaling and takes longer the larger the scale. */
+    private static String read(OcrProfile profile) {
+        try {
+            Thread.sleep((long) (profile.getScale() * 2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return profile.getScale() >= 3 ? "4096" : "4O96";
+    }
+
+    @Test
+    public void testParetoFrontAndExport() throws Exception {
+        List<OcrTuner.Sample> samples = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            samples.add(new OcrTuner.Sample("score" + i, new Mat(40, 120, CV_8UC3), new Rect(0, 0, 120, 40), "4096"));
+        }
+        List<OcrProfile> candidates = new ArrayList<>();
+        for (double scale : new double[] {2, 3, 6}) {
+            candidates.add(new OcrProfile().setScale(scale).setRepeats(1).setDebugImages(false));
+        }
+
+        OcrTuner tuner = new OcrTuner(samples, () -> (image, region, profile) -> read(profile), 2);
+        List<OcrTuner.Evaluation> evaluations = tuner.evaluate(candidates);
+        List<OcrTuner.Evaluation> front = OcrTuner.paretoFront(evaluations);
+
+        Assert.assertEquals(evaluations.size(), 3);
+        Assert.assertEquals(front.size(), 2, front.toString());
+        Assert.assertEquals(front.get(0).getProfile().getScale(), 2.0);
+        Assert.assertEquals(front.get(0).getAccuracy(), 0.75, 1e-9);
+
+        OcrTuner.Evaluation best = OcrTuner.winner(front);
+        Assert.assertEquals(best.getProfile().getScale(), 3.0);
+
+        Path file = Files.createTempFile("ocr-profile", ".properties");
+        best.getProfile().store(file, "test");
+        OcrProfile loaded = OcrProfile.load(file);
+        Files.delete(file);
+        Assert.assertEquals(loaded.getScale(), 3.0);
+        Assert.assertEquals(loaded.getRepeats(), 1);
+        Assert.assertFalse(loaded.isDebugImages());
+        Assert.assertEquals(loaded.getWhitelist(), new OcrProfile().getWhitelist());
+        Assert.assertEquals(loaded.getVariables(), new OcrProfile().getVariables());
+    }
+}
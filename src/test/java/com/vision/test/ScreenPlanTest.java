@@ -0,0 +1,159 @@
+package com.vision.test;
+
+import com.vision.core.ImageHashes;
+import com.vision.mobile.FrameSource;
+import com.vision.mobile.MobileVisionQuery;
+import com.vision.mobile.OcrProfile;
+import com.vision.mobile.VisionOperations;
+import com.vision.screen.ScreenModel;
+import com.vision.screen.ScreenPlan;
+import org.bytedeco.opencv.opencv_core.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+
+public class ScreenPlanTest {
+
+    /** Counts OCR calls and "reads" fixed text so the plan's ordering can be observed. */
+    private static class CountingEngine implements VisionOperations {
+        private final AtomicInteger ocrCalls = new AtomicInteger();
+
+        @Override
+        public String performOCR(Mat image, Rect region) {
+            ocrCalls.incrementAndGet();
+            return "Choose Language";
+        }
+
+        @Override
+        public boolean findLogoInRegion(Mat image, Rect region, Mat template) {
+            return true;
+        }
+    }
+
+    private Mat screen(double blue) {
+        Mat image = new Mat(400, 200, CV_8UC3, new Scalar(255.0, 255.0, 255.0, 0.0));
+        new Mat(image, new Rect(0, 0, 200, 100)).put(new Scalar(blue, 40.0, 20.0, 0.0));
+        return image;
+    }
+
+    private Properties twoTexts() {
+        Properties properties = new Properties();
+        properties.setProperty("region.title", "0,0.25,1,0.25");
+        properties.setProperty("region.footer", "0,0.75,1,0.25");
+        properties.setProperty("check.title.type", "text");
+        properties.setProperty("check.title.region", "title");
+        properties.setProperty("check.title.expected", "choose");
+        properties.setProperty("check.footer.type", "text");
+        properties.setProperty("check.footer.region", "footer");
+        properties.setProperty("check.footer.expected", "continue");
+        return properties;
+    }
+
+    private ScreenModel model(long hash) {
+        Properties properties = new Properties();
+        properties.setProperty("region.banner", "0,0,1,0.25");
+        properties.setProperty("region.title", "0,0.25,1,0.25");
+        properties.setProperty("check.title.type", "text");
+        properties.setProperty("check.title.region", "title");
+        properties.setProperty("check.title.expected", "choose|language");
+        properties.setProperty("check.banner.type", "color");
+        properties.setProperty("check.banner.region", "banner");
+        properties.setProperty("check.banner.color", "200,40,20");
+        properties.setProperty("check.banner.tolerance", "10");
+        properties.setProperty("check.layout.type", "hash");
+        properties.setProperty("check.layout.hash", Long.toHexString(hash));
+        properties.setProperty("check.layout.maxDistance", "4");
+        return ScreenModel.fromProperties("language_selection", properties);
+    }
+
+    @Test
+    public void testChecksRunCheapestFirst() throws IOException {
+        Mat screen = screen(200.0);
+        CountingEngine engine = new CountingEngine();
+        try (ScreenPlan plan = ScreenPlan.compile(model(ImageHashes.differenceHash(screen)), engine)) {
+            Assert.assertEquals(plan.getOrder(), Arrays.asList("layout", "banner", "title"));
+
+            ScreenPlan.Verification result = plan.verify(screen);
+
+            Assert.assertTrue(result.isPassed(), result.toString());
+            Assert.assertEquals(result.getOutcomes().size(), 3);
+            Assert.assertEquals(engine.ocrCalls.get(), 1);
+        }
+    }
+
+    @Test
+    public void testCheapFailureSkipsOcr() throws IOException {
+        CountingEngine engine = new CountingEngine();
+        try (ScreenPlan plan = ScreenPlan.compile(model(ImageHashes.differenceHash(screen(200.0))), engine)) {
+            ScreenPlan.Verification result = plan.verify(screen(60.0));
+
+            Assert.assertFalse(result.isPassed());
+            Assert.assertFalse(result.outcome("banner").get().isPassed());
+            Assert.assertEquals(result.getSkipped(), Arrays.asList("title"));
+            Assert.assertEquals(engine.ocrCalls.get(), 0);
+        }
+    }
+
+    @Test
+    public void testFailureSkipsUnstartedChecksOfSameTier() throws IOException {
+        AtomicInteger ocrCalls = new AtomicInteger();
+        VisionOperations wrongScreen = new CountingEngine() {
+            @Override
+            public String performOCR(Mat image, Rect region) {
+                ocrCalls.incrementAndGet();
+                return "Settings";
+            }
+        };
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        try (ScreenPlan plan = ScreenPlan.compile(ScreenModel.fromProperties("two_texts", twoTexts()), wrongScreen,
+                null, single)) {
+            ScreenPlan.Verification result = plan.verify(screen(200.0));
+
+            // Whichever text check runs first fails; the other one never reads
+            Assert.assertFalse(result.isPassed());
+            Assert.assertEquals(result.getOutcomes().size(), 1, result.toString());
+            Assert.assertEquals(result.getSkipped().size(), 1, result.toString());
+            Assert.assertEquals(ocrCalls.get(), 1);
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelChecksWriteNoDebugImages() throws IOException {
+        AtomicInteger ocrCalls = new AtomicInteger();
+        AtomicBoolean debugImagesSeen = new AtomicBoolean();
+        MobileVisionQuery query = new MobileVisionQuery((FrameSource) null) {
+            @Override
+            public String performOCR(Mat image, Rect region, OcrProfile profile) {
+                ocrCalls.incrementAndGet();
+                debugImagesSeen.compareAndSet(false, profile.isDebugImages());
+                return "choose continue";
+            }
+        };
+        Assert.assertTrue(query.getOcrProfile().isDebugImages());
+
+        try (ScreenPlan plan = ScreenPlan.compile(ScreenModel.fromProperties("two_texts", twoTexts()), query)) {
+            Assert.assertTrue(plan.verify(screen(200.0)).isPassed());
+        }
+        Assert.assertEquals(ocrCalls.get(), 2);
+        Assert.assertFalse(debugImagesSeen.get(), "Checks running in parallel must not write debug images");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownRegionIsRejected() {
+        Properties properties = new Properties();
+        properties.setProperty("check.title.type", "text");
+        properties.setProperty("check.title.region", "missing");
+        ScreenModel.fromProperties("broken", properties);
+    }
+}
@@ -0,0 +1,108 @@
+package com.vision.test;
+
+import com.vision.core.ImageHashes;
+import com.vision.mobile.*;
+import org.bytedeco.opencv.opencv_core.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+
+public class SessionReplayTest {
+
+    private Mat screen(double shade) {
+        Mat image = new Mat(240, 135, CV_8UC3, new Scalar(shade, 255.0 - shade, 128.0, 0.0));
+        new Mat(image, new Rect(10, 20, 60, 30)).put(new Scalar(0.0, 0.0, shade, 0.0));
+        return image;
+    }
+
+    @Test
+    public void testRecordedFramesAndCallsReplay() throws Exception {
+        Path spool = Files.createTempFile("session", ".spool");
+        try (SessionRecorder recorder = new SessionRecorder(spool)) {
+            long[] indices = new long[3];
+            for (int i = 0; i < 3; i++) {
+                indices[i] = recorder.recordFrame(screen(i * 80.0), i * 33_000L);
+            }
+            // Calls name their frame explicitly, so they need not follow the frame they were made on
+            for (int i = 0; i < 3; i++) {
+                recorder.recordCall(indices[i], "ocr", new Rect(10, 20, 60, 30), "score " + i, 1_000_000L);
+            }
+        }
+
+        try (ReplayFrameSource replay = new ReplayFrameSource(spool)) {
+            Assert.assertEquals(replay.getFrameCount(), 3);
+            Assert.assertEquals(replay.getCalls().size(), 3);
+            Assert.assertEquals(replay.getCalls().get(2).getResult(), "score 2");
+            Assert.assertEquals(replay.getCalls().get(0).getFrameIndex(), 0);
+            Assert.assertEquals(replay.getCalls().get(2).getFrameIndex(), 2);
+
+            MobileVisionQuery visionQuery = new MobileVisionQuery(replay);
+            for (int i = 0; i < 3; i++) {
+                Mat frame = visionQuery.getCurrentScreenAsMat();
+                Assert.assertEquals(ImageHashes.contentHash(frame), ImageHashes.contentHash(screen(i * 80.0)));
+            }
+            Assert.assertNull(replay.next());
+
+            // Drawing on a replayed frame must not change the file
+            replay.rewind();
+            CapturedFrame first = replay.next();
+            Assert.assertEquals(first.getTimestampMicros(), 0L);
+            first.getImage().put(new Scalar(1.0, 2.0, 3.0, 0.0));
+        }
+        try (ReplayFrameSource again = new ReplayFrameSource(spool)) {
+            Assert.assertEquals(ImageHashes.contentHash(again.frame(0).getImage()), ImageHashes.contentHash(screen(0.0)));
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    @Test(expectedExceptions = java.io.IOException.class)
+    public void testRejectsForeignFile() throws Exception {
+        Path file = Files.createTempFile("not-a-session", ".spool");
+        try {
+            Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+            new ReplayFrameSource(file).close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testQueryRecordsCallsAgainstTheirFrame() throws Exception {
+        Path spool = Files.createTempFile("session", ".spool");
+        try {
+            List<Mat> screens = Arrays.asList(screen(0.0), screen(80.0));
+            MobileVisionQuery visionQuery = new MobileVisionQuery(FrameSource.fromIterator(screens.iterator(), 33_000L));
+            visionQuery.setOcrProfile(new OcrProfile().setDebugImages(false));
+            Mat template = new Mat(screen(0.0), new Rect(10, 20, 60, 30)).clone();
+            try (SessionRecorder recorder = new SessionRecorder(spool)) {
+                visionQuery.setRecorder(recorder);
+                Mat first = visionQuery.getCurrentScreenAsMat();
+                Mat second = visionQuery.getCurrentScreenAsMat();
+                // The older frame is analysed last, as a pipeline that runs behind capture would
+                visionQuery.findLogoInRegion(second, new Rect(10, 20, 60, 30), template);
+                visionQuery.findLogoInRegion(first, new Rect(10, 20, 60, 30), template);
+                visionQuery.setRecorder(null);
+            }
+
+            try (ReplayFrameSource replay = new ReplayFrameSource(spool)) {
+                List<ReplayFrameSource.RecordedCall> calls = replay.getCalls();
+                Assert.assertEquals(calls.size(), 2);
+                Assert.assertEquals(calls.get(0).getFrameIndex(), 1);
+                Assert.assertEquals(calls.get(1).getFrameIndex(), 0);
+                // Frames and calls share the recorder's clock
+                long lastFrame = replay.frame(1).getTimestampMicros();
+                Assert.assertTrue(calls.get(0).getTimestampMicros() >= lastFrame, calls.get(0).getTimestampMicros() + " < " + lastFrame);
+                Assert.assertTrue(lastFrame < 60_000_000L, "Frame timestamps must be relative to the recorder");
+            }
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.vision.test;
 
+import com.vision.core.NativeRuntime;
+import com.vision.core.OcrEnginePool;
 import com.vision.core.VisionQuery;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
@@ -9,6 +11,8 @@ import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public class TesseractTest {
     private VisionQuery visionQuery;
@@ -45,4 +49,16 @@ public class TesseractTest {
         // Clean up
         testImage.delete();
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testEnginesAreSharedAcrossThreads() throws Exception {
+        OcrEnginePool engines = NativeRuntime.get().ocrEngines("eng");
+        engines.release(engines.borrow());
+        int created = engines.getCreated();
+
+        // Another thread gets an idle engine instead of loading the model again
+        CompletableFuture.runAsync(() -> engines.release(engines.borrow())).get(30, TimeUnit.SECONDS);
+        Assert.assertEquals(engines.getCreated(), created);
+        Assert.assertTrue(created <= engines.getCapacity());
+    }
+}
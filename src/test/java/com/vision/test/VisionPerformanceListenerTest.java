@@ -0,0 +1,124 @@
+package com.vision.test;
+
+import com.vision.core.VisionTimings;
+import com.vision.core.VisionTimings.Stage;
+import com.vision.testng.VisionPerformanceListener;
+import org.testng.Assert;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class VisionPerformanceListenerTest {
+
+    /** Stand-in test that reports 300 ms of OCR without doing any. */
+    public static class TimedStub {
+        @Test
+        public void readScore() {
+            VisionTimings.record(Stage.OCR, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(300));
+        }
+    }
+
+    /** Same as {@link TimedStub}, but TestNG runs the body on its timeout thread. */
+    public static class TimeoutStub {
+        @Test(timeOut = 10_000)
+        public void readScore() {
+            VisionTimings.record(Stage.OCR, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(300));
+        }
+    }
+
+    private TestNG run(Properties config) {
+        return run(config, TimedStub.class);
+    }
+
+    private TestNG run(Properties config, Class<?> testClass) {
+        TestNG testng = new TestNG(false);
+        testng.setTestClasses(new Class[] {testClass});
+        testng.addListener(new VisionPerformanceListener(config));
+        testng.setVerbose(0);
+        testng.run();
+        return testng;
+    }
+
+    @Test
+    public void testHistoryAndBudget() throws Exception {
+        Path history = Files.createTempDirectory("vision-perf").resolve("history.csv");
+        Properties config = new Properties();
+        config.setProperty("vision.perf.history.path", history.toString());
+
+        Assert.assertFalse(run(config).hasFailure());
+        List<String> lines = Files.readAllLines(history, StandardCharsets.UTF_8);
+        Assert.assertEquals(lines.size(), 2);
+        Assert.assertEquals(lines.get(0), "timestamp,test,status,total_ms,capture_ms,decode_ms,preprocess_ms,match_ms,ocr_ms");
+        String[] row = lines.get(1).split(",");
+        Assert.assertEquals(row[1], TimedStub.class.getName() + ".readScore");
+        Assert.assertEquals(row[2], "PASS");
+        Assert.assertTrue(Double.parseDouble(row[8]) >= 300.0, lines.get(1));
+
+        // Over budget only warns by default
+        config.setProperty("vision.perf.budget." + TimedStub.class.getName() + ".readScore.ms", "100");
+        Assert.assertFalse(run(config).hasFailure());
+
+        config.setProperty("vision.perf.action", "fail");
+        Assert.assertTrue(run(config).hasFailure());
+    }
+
+    @Test
+    public void testMethodsWithTimeoutAreNotRecorded() throws Exception {
+        Path history = Files.createTempDirectory("vision-perf").resolve("history.csv");
+        Properties config = new Properties();
+        config.setProperty("vision.perf.history.path", history.toString());
+        config.setProperty("vision.perf.budget.ms", "1");
+        config.setProperty("vision.perf.action", "fail");
+
+        Assert.assertFalse(run(config, TimeoutStub.class).hasFailure());
+        Assert.assertFalse(Files.exists(history), "A 0 ms row would skew the baseline");
+    }
+
+    @Test
+    public void testTimingsOutsideScopeAreDropped() {
+        VisionTimings.Scope scope = VisionTimings.start();
+        VisionTimings.record(Stage.MATCH, System.nanoTime() - 1_000_000);
+        scope.close();
+        VisionTimings.record(Stage.MATCH, System.nanoTime() - 1_000_000);
+
+        Assert.assertEquals(scope.getCount(Stage.MATCH), 1);
+        Assert.assertTrue(scope.getNanos(Stage.MATCH) >= 1_000_000);
+        Assert.assertEquals(scope.getCount(Stage.OCR), 0);
+    }
+
+    @Test
+    public void testNestedScopesRestoreAndPropagate() throws Exception {
+        VisionTimings.Scope outer = VisionTimings.start();
+        VisionTimings.Scope inner = VisionTimings.start();
+        Assert.assertSame(VisionTimings.current(), inner);
+        inner.close();
+        Assert.assertSame(VisionTimings.current(), outer);
+
+        // Pool threads record into the scope only through propagate
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            pool.submit(() -> VisionTimings.record(Stage.DECODE, System.nanoTime() - 1_000_000)).get();
+            Supplier<Object> task = VisionTimings.propagate(() -> {
+                VisionTimings.record(Stage.OCR, System.nanoTime() - 1_000_000);
+                return null;
+            });
+            pool.submit(task::get).get();
+            Assert.assertNull(pool.submit(VisionTimings::current).get(), "Pool thread must not keep the scope");
+        } finally {
+            pool.shutdown();
+            outer.close();
+        }
+        Assert.assertNull(VisionTimings.current());
+        Assert.assertEquals(outer.getCount(Stage.DECODE), 0);
+        Assert.assertEquals(outer.getCount(Stage.OCR), 1);
+    }
+}
@@ -0,0 +1,117 @@
+package com.vision.test;
+
+import com.vision.mobile.FrameSource;
+import com.vision.mobile.VisionScheduler;
+import org.bytedeco.opencv.opencv_core.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+
+public class VisionSchedulerTest {
+
+    @Test
+    public void testSessionsAreServedRoundRobin() throws Exception {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch gate = new CountDownLatch(1);
+
+        try (VisionScheduler scheduler = new VisionScheduler(1)) {
+            // Hold the only worker until every job is queued
+            scheduler.submit("blocker", () -> {
+                gate.await();
+                return null;
+            });
+            List<CompletableFuture<?>> jobs = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                jobs.add(scheduler.submit("busy-device", () -> order.add("busy")));
+            }
+            jobs.add(scheduler.submit("quiet-device", () -> order.add("quiet")));
+
+            Assert.assertEquals(scheduler.stats("busy-device").getQueueDepth(), 6);
+            gate.countDown();
+            CompletableFuture.allOf(jobs.toArray(new CompletableFuture[0])).join();
+        }
+
+        Assert.assertTrue(order.indexOf("quiet") <= 1, "Quiet device should not wait behind the burst: " + order);
+    }
+
+    @Test
+    public void testPriorityWins() throws Exception {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch gate = new CountDownLatch(1);
+
+        try (VisionScheduler scheduler = new VisionScheduler(1)) {
+            scheduler.submit("blocker", () -> {
+                gate.await();
+                return null;
+            });
+            CompletableFuture<Boolean> low = scheduler.submit("device-a", 0, () -> order.add("low"));
+            CompletableFuture<Boolean> high = scheduler.submit("device-b", 10, () -> order.add("high"));
+            gate.countDown();
+            CompletableFuture.allOf(low, high).join();
+
+            Assert.assertEquals(order.get(0), "high");
+            Assert.assertEquals(scheduler.stats("device-b").getCompleted(), 1);
+        }
+    }
+
+    @Test
+    public void testAgingStopsBusyHighPrioritySessionFromStarvingOthers() throws Exception {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch gate = new CountDownLatch(1);
+
+        try (VisionScheduler scheduler = new VisionScheduler(1, 10)) {
+            scheduler.submit("blocker", () -> {
+                gate.await();
+                return null;
+            });
+            CompletableFuture<Boolean> low = scheduler.submit("device-a", 0, () -> order.add("low"));
+            // Every high-priority job queues the next one, so device-b always has a fresh job waiting
+            scheduler.submit("device-b", 5, new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    order.add("high");
+                    Thread.sleep(5);
+                    if (order.size() < 100) {
+                        scheduler.submit("device-b", 5, this);
+                    }
+                    return null;
+                }
+            });
+            gate.countDown();
+            low.get(5, TimeUnit.SECONDS);
+
+            Assert.assertTrue(order.indexOf("low") < 50, "Low priority job waited too long: " + order.indexOf("low"));
+        }
+    }
+
+    @Test
+    public void testFrameJobsWithStandInSource() throws Exception {
+        List<Mat> frames = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            frames.add(new Mat(100, 50, CV_8UC3, new Scalar(i * 50.0, 0.0, 0.0, 0.0)));
+        }
+        FrameSource source = FrameSource.fromIterator(frames.iterator(), 100_000);
+
+        try (VisionScheduler scheduler = new VisionScheduler(2)) {
+            List<CompletableFuture<Double>> results = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                results.add(scheduler.submitFrame("emulator-5554", 0, source, frame -> mean(frame.getImage()).get(0)));
+            }
+
+            Assert.assertEquals(results.get(2).join(), 100.0, 1e-6);
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+            VisionScheduler.SessionStats stats = scheduler.stats("emulator-5554");
+            Assert.assertEquals(stats.getCompleted(), 3);
+            Assert.assertEquals(stats.getFailed(), 0);
+        }
+    }
+}
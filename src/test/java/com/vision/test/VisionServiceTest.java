@@ -0,0 +1,119 @@
+package com.vision.test;
+
+import com.vision.mobile.VisionOperations;
+import com.vision.service.VisionClient;
+import com.vision.service.VisionServer;
+import org.bytedeco.opencv.opencv_core.*;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+
+public class VisionServiceTest {
+    private VisionServer server;
+
+    /** Stand-in engine: "reads" the mean blue value of the region and compares template sizes. */
+    private static class StubEngine implements VisionOperations {
+        @Override
+        public String performOCR(Mat image, Rect region) {
+            return String.valueOf((int) mean(new Mat(image, region)).get(0));
+        }
+
+        @Override
+        public boolean findLogoInRegion(Mat image, Rect region, Mat template) {
+            return template.cols() <= region.width() && template.rows() <= region.height();
+        }
+    }
+
+    @BeforeClass
+    public void setup() throws Exception {
+        server = new VisionServer(0, 2, 8, 2, StubEngine::new).start();
+    }
+
+    private Mat screen() {
+        Mat image = new Mat(200, 100, CV_8UC3, new Scalar(10.0, 0.0, 0.0, 0.0));
+        new Mat(image, new Rect(0, 100, 100, 100)).put(new Scalar(90.0, 0.0, 0.0, 0.0));
+        return image;
+    }
+
+    @Test
+    public void testSharedMemoryRequests() {
+        VisionClient client = new VisionClient(URI.create("http://127.0.0.1:" + server.getPort()), true);
+
+        Assert.assertTrue(client.isAvailable());
+        Assert.assertEquals(client.performOCR(screen(), new Rect(0, 100, 100, 100)), "90");
+        Assert.assertTrue(client.findLogoInRegion(screen(), new Rect(0, 0, 100, 100), new Mat(20, 20, CV_8UC3)));
+    }
+
+    @Test
+    public void testInlineRequests() {
+        VisionClient client = new VisionClient(URI.create("http://127.0.0.1:" + server.getPort()), false);
+
+        Assert.assertEquals(client.performOCR(screen(), new Rect(0, 0, 100, 100)), "10");
+        Assert.assertFalse(client.findLogoInRegion(screen(), new Rect(0, 0, 10, 10), new Mat(20, 20, CV_8UC3)));
+    }
+
+    @Test
+    public void testBatchRunsBackToBackOnEngineThreads() throws Exception {
+        Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        // A long collection window puts all four requests into one batch: two runs of two on two engines
+        try (VisionServer batching = new VisionServer(0, 2, 4, 2_000, () -> new StubEngine() {
+            @Override
+            public String performOCR(Mat image, Rect region) {
+                calls.computeIfAbsent(Thread.currentThread().getName(), thread -> new AtomicInteger()).incrementAndGet();
+                return super.performOCR(image, region);
+            }
+        }).start()) {
+            VisionClient client = new VisionClient(URI.create("http://127.0.0.1:" + batching.getPort()), false);
+            List<Future<String>> answers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                answers.add(callers.submit(() -> client.performOCR(screen(), new Rect(0, 100, 100, 100))));
+            }
+            for (Future<String> answer : answers) {
+                Assert.assertEquals(answer.get(10, TimeUnit.SECONDS), "90");
+            }
+            Assert.assertEquals(calls.size(), 2, calls.toString());
+            calls.values().forEach(count -> Assert.assertEquals(count.get(), 2, calls.toString()));
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCloseFailsRequestsStillBeingBatched() throws Exception {
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        VisionServer closing = new VisionServer(0, 1, 16, 60_000, StubEngine::new).start();
+        VisionClient client = new VisionClient(URI.create("http://127.0.0.1:" + closing.getPort()), false);
+        Future<String> answer;
+        try {
+            answer = caller.submit(() -> client.performOCR(screen(), new Rect(0, 0, 100, 100)));
+            Thread.sleep(300);
+            Assert.assertFalse(answer.isDone(), "The request should wait in the batcher's collection window");
+        } finally {
+            closing.close();
+        }
+        try {
+            ExecutionException failure = Assert.expectThrows(ExecutionException.class,
+                () -> answer.get(5, TimeUnit.SECONDS));
+            Assert.assertTrue(String.valueOf(failure.getCause().getMessage()).contains("503"),
+                String.valueOf(failure.getCause()));
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+
+    @AfterClass
+    public void tearDown() {
+        server.close();
+    }
+}